@@ -1,6 +1,7 @@
 package com.tfyre.bambu;
 
 import com.tfyre.bambu.printer.BambuConst.PrinterModel;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithConverter;
 import io.smallrye.config.WithDefault;
@@ -34,6 +35,9 @@ public interface BambuConfig {
     @WithDefault("1s")
     Duration refreshInterval();
 
+    @WithDefault("8")
+    int startParallelism();
+
     @WithDefault("true")
     boolean remoteView();
 
@@ -43,6 +47,18 @@ public interface BambuConfig {
 
     BatchPrint batchPrint();
 
+    Logs logs();
+
+    FtpPool ftpPool();
+
+    Telemetry telemetry();
+
+    SharedMqtt sharedMqtt();
+
+    ConfigReload configReload();
+
+    Executors executors();
+
     Map<String, Printer> printers();
 
     @WithDefault("false")
@@ -73,7 +89,102 @@ public interface BambuConfig {
 
         @WithDefault("true")
         boolean enforceFilamentMapping();
-        
+
+        @WithDefault("manifest")
+        String manifestDir();
+
+        @WithDefault("10")
+        int projectCache();
+
+        Upload upload();
+
+        public interface Upload {
+
+            @WithDefault("4")
+            int maxConcurrent();
+
+            @WithDefault("0")
+            MemorySize bandwidth();
+
+            @WithDefault("3")
+            int retries();
+
+            @WithDefault("5s")
+            Duration backoff();
+
+        }
+
+    }
+
+    public interface Logs {
+
+        @WithDefault("1M")
+        MemorySize maxSize();
+
+        @WithDefault("1000")
+        int maxItems();
+
+    }
+
+    public interface FtpPool {
+
+        @WithDefault("2")
+        int maxIdle();
+
+        @WithDefault("2m")
+        Duration idleTimeout();
+
+    }
+
+    public interface ConfigReload {
+
+        @WithDefault("true")
+        boolean enabled();
+
+        @WithDefault("10s")
+        Duration interval();
+
+    }
+
+    public interface Executors {
+
+        Optional<Integer> cpuThreads();
+
+        @WithDefault("100")
+        int printerQueue();
+
+        @WithDefault("true")
+        boolean pinnedEvents();
+
+        @WithDefault("20ms")
+        Duration pinnedThreshold();
+
+    }
+
+    public interface SharedMqtt {
+
+        @WithDefault("false")
+        boolean enabled();
+
+    }
+
+    public interface Telemetry {
+
+        @WithDefault("true")
+        boolean enabled();
+
+        @WithDefault("telemetry")
+        String dir();
+
+        @WithDefault("1d")
+        Duration secondRetention();
+
+        @WithDefault("30d")
+        Duration minuteRetention();
+
+        @WithDefault("365d")
+        Duration hourRetention();
+
     }
 
     public interface Cloud {
@@ -98,6 +209,9 @@ public interface BambuConfig {
         @WithDefault("true")
         boolean filamentFullName();
 
+        @WithDefault("1s")
+        Duration cameraInterval();
+
     }
 
     public interface Printer {
@@ -184,6 +298,12 @@ public interface BambuConfig {
 
             @WithDefault("5m")
             Duration watchDog();
+
+            @WithDefault("10s")
+            Duration overviewInterval();
+
+            @WithDefault("1m")
+            Duration idleTimeout();
         }
     }
 
@@ -0,0 +1,253 @@
+package com.tfyre.bambu;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Executors shared by the printers and views.
+ *
+ * Blocking I/O like FTP and MQTT publishing runs on virtual threads, decoding reports runs on a small pool of platform
+ * threads so a burst of reports cannot take the carrier threads from the blocking work and the UI timers. Each printer
+ * has a bounded report queue that drops its oldest report when full, so the MQTT thread shared by the printers of a
+ * broker never waits. Virtual threads pinned to their carrier are recorded from the {@code jdk.VirtualThreadPinned}
+ * event.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class BambuExecutors {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    @Inject
+    BambuConfig config;
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicInteger blockingActive = new AtomicInteger();
+    //tasks waiting in the per printer queues
+    private final AtomicInteger cpuPending = new AtomicInteger();
+    private final AtomicInteger blockingPending = new AtomicInteger();
+    private final AtomicInteger cpuThreadId = new AtomicInteger();
+    private ExecutorService blocking;
+    private ThreadPoolExecutor cpu;
+    private Counter cpuDropped;
+    private Optional<RecordingStream> pinned = Optional.empty();
+
+    @PostConstruct
+    public void postConstruct() {
+        final BambuConfig.Executors executors = config.executors();
+        blocking = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-", 1).factory());
+        final int threads = Math.max(1, executors.cpuThreads().orElse(Runtime.getRuntime().availableProcessors()));
+        //holds at most one task per printer, the per printer queues are bounded
+        cpu = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread result = new Thread(r, "cpu-%d".formatted(cpuThreadId.incrementAndGet()));
+            result.setDaemon(true);
+            return result;
+        });
+        cpuDropped = Counter.builder("bambu.executor.dropped")
+                .description("Tasks dropped because the queue of their printer was full")
+                .tag("pool", "cpu")
+                .register(registry);
+
+        Gauge.builder("bambu.executor.queue", cpuPending, AtomicInteger::get)
+                .description("Tasks waiting to run")
+                .tag("pool", "cpu")
+                .register(registry);
+        Gauge.builder("bambu.executor.queue", blockingPending, AtomicInteger::get)
+                .description("Tasks waiting to run")
+                .tag("pool", "blocking")
+                .register(registry);
+        Gauge.builder("bambu.executor.active", cpu, ThreadPoolExecutor::getActiveCount)
+                .description("Tasks running")
+                .tag("pool", "cpu")
+                .register(registry);
+        Gauge.builder("bambu.executor.active", blockingActive, AtomicInteger::get)
+                .description("Tasks running")
+                .tag("pool", "blocking")
+                .register(registry);
+        if (executors.pinnedEvents()) {
+            startPinned(executors);
+        }
+    }
+
+    private void startPinned(final BambuConfig.Executors executors) {
+        final Timer timer = Timer.builder("bambu.executor.pinned")
+                .description("Virtual threads blocked while pinned to their carrier thread")
+                .register(registry);
+        try {
+            final RecordingStream stream = new RecordingStream();
+            stream.enable(PINNED).withThreshold(executors.pinnedThreshold()).withStackTrace();
+            stream.onEvent(PINNED, event -> {
+                timer.record(event.getDuration());
+                if (Log.isDebugEnabled()) {
+                    Log.debugf("Virtual thread pinned for %d ms: %s", event.getDuration().toMillis(),
+                            Optional.ofNullable(event.getStackTrace()).map(Object::toString).orElse("no stack"));
+                }
+            });
+            stream.startAsync();
+            pinned = Optional.of(stream);
+        } catch (IllegalStateException | SecurityException | UnsupportedOperationException ex) {
+            Log.errorf("Cannot record pinned virtual threads: %s", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        pinned.ifPresent(RecordingStream::close);
+        cpu.shutdownNow();
+        blocking.shutdownNow();
+    }
+
+    /**
+     * @return runs each task on its own virtual thread, for FTP, MQTT publishing and other blocking work
+     */
+    public Executor blocking() {
+        return task -> {
+            blockingActive.incrementAndGet();
+            try {
+                blocking.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        blockingActive.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                blockingActive.decrementAndGet();
+                throw ex;
+            }
+        };
+    }
+
+    /**
+     * @param onDropped runs on the submitting thread after the oldest waiting task was dropped for a new one
+     * @return runs the tasks one after the other in submission order on the cpu pool, for decoding the reports of one
+     * printer
+     */
+    public Executor serialCpu(final Runnable onDropped) {
+        return new Serial(cpu, cpuPending, config.executors().printerQueue(), () -> {
+            cpuDropped.increment();
+            onDropped.run();
+        });
+    }
+
+    /**
+     * @return runs the tasks one after the other in submission order on virtual threads, for the commands of one printer,
+     * commands are never dropped
+     */
+    public Executor serialBlocking() {
+        return new Serial(blocking(), blockingPending, Integer.MAX_VALUE, () -> {
+        });
+    }
+
+    /**
+     * Runs its tasks in order, one at a time, by looping over its own queue in a single task on the executor. When the
+     * queue is full the oldest waiting task is dropped, so a slow consumer never blocks the caller.
+     */
+    private static final class Serial implements Executor {
+
+        private final Executor executor;
+        private final AtomicInteger pending;
+        private final int capacity;
+        private final Runnable onDropped;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        //a lock instead of synchronized so virtual threads are not pinned
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean draining;
+
+        private Serial(final Executor executor, final AtomicInteger pending, final int capacity, final Runnable onDropped) {
+            this.executor = executor;
+            this.pending = pending;
+            this.capacity = Math.max(1, capacity);
+            this.onDropped = onDropped;
+        }
+
+        @Override
+        public void execute(final Runnable task) {
+            final boolean start;
+            final boolean dropped;
+            lock.lock();
+            try {
+                dropped = tasks.size() >= capacity;
+                if (dropped) {
+                    tasks.remove();
+                } else {
+                    pending.incrementAndGet();
+                }
+                tasks.add(task);
+                start = !draining;
+                draining = true;
+            } finally {
+                lock.unlock();
+            }
+            if (dropped) {
+                onDropped.run();
+            }
+            if (!start) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                lock.lock();
+                try {
+                    pending.addAndGet(-tasks.size());
+                    tasks.clear();
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+                throw ex;
+            }
+        }
+
+        private Optional<Runnable> poll() {
+            lock.lock();
+            try {
+                final Optional<Runnable> result = Optional.ofNullable(tasks.poll());
+                if (result.isEmpty()) {
+                    draining = false;
+                } else {
+                    pending.decrementAndGet();
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drain() {
+            Optional<Runnable> task;
+            while ((task = poll()).isPresent()) {
+                try {
+                    task.get().run();
+                } catch (RuntimeException ex) {
+                    Log.errorf(ex, "Task failed: %s", ex.getMessage());
+                }
+            }
+        }
+
+    }
+
+}
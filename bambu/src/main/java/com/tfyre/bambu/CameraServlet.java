@@ -0,0 +1,89 @@
+package com.tfyre.bambu;
+
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinters;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Serves the latest camera frame of a printer, every session shares the frame bytes held by the printer.
+ *
+ * The dashboard limits how often a viewer asks for a frame, it only moves to the URL of a new frame once the camera
+ * interval elapsed. The ETag lets the browser revalidate a frame it already holds without downloading it again.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@WebServlet(urlPatterns = CameraServlet.PATH)
+public class CameraServlet extends HttpServlet {
+
+    public static final String PATH = "/camera";
+    private static final String PARAM_PRINTER = "printer";
+
+    @Inject
+    BambuPrinters printers;
+
+    public static String getUrl(final String printerName, final long id) {
+        //relative to the vaadin base href
+        return "%s?%s=%s&v=%d".formatted(PATH.substring(1), PARAM_PRINTER, URLEncoder.encode(printerName, StandardCharsets.UTF_8), id);
+    }
+
+    private boolean hasAccess(final HttpServletRequest req) {
+        return req.isUserInRole(SystemRoles.ROLE_ADMIN) || req.isUserInRole(SystemRoles.ROLE_NORMAL);
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+        if (!hasAccess(req)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        final String printerName = req.getParameter(PARAM_PRINTER);
+        final Optional<BambuPrinter.Thumbnail> thumbnail = Optional.ofNullable(printerName)
+                .flatMap(printers::getPrinter)
+                .flatMap(this::retainThumbnail);
+        if (thumbnail.isEmpty()) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try {
+            sendFrame(req, resp, thumbnail.get());
+        } finally {
+            thumbnail.get().release();
+        }
+    }
+
+    /**
+     * @return the current frame, retained so it is not released when the next frame arrives while writing
+     */
+    private Optional<BambuPrinter.Thumbnail> retainThumbnail(final BambuPrinter printer) {
+        for (int i = 0; i < 3; i++) {
+            final Optional<BambuPrinter.Thumbnail> result = printer.getThumbnail();
+            //a released frame was just replaced, pick up the new one
+            if (result.isEmpty() || result.get().retain()) {
+                return result;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void sendFrame(final HttpServletRequest req, final HttpServletResponse resp, final BambuPrinter.Thumbnail frame) throws IOException {
+        resp.setHeader("Cache-Control", "private, no-cache");
+        resp.setHeader("ETag", frame.etag());
+        if (Optional.ofNullable(req.getHeader("If-None-Match")).filter(frame.etag()::equals).isPresent()) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        resp.setContentType("image/jpeg");
+        resp.setContentLength(frame.size());
+        frame.writeTo(resp.getOutputStream());
+    }
+
+}
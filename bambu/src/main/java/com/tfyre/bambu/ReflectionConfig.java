@@ -0,0 +1,67 @@
+package com.tfyre.bambu;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Classes used through reflection in a native image: protobuf accessors used by {@link com.google.protobuf.util.JsonFormat}
+ * and the message decoder, the JAXB slice_info schema and json files written with Jackson. Nested classes like the protobuf
+ * builders are only registered with their outer class because of {@code ignoreNested = false}, the OrBuilder interfaces
+ * are top level classes and listed.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@RegisterForReflection(ignoreNested = false, targets = {
+    com.tfyre.bambu.model.Empty.class,
+    com.tfyre.bambu.model.Pushing.class,
+    com.tfyre.bambu.model.Upload.class,
+    com.tfyre.bambu.model.Online.class,
+    com.tfyre.bambu.model.Tray.class,
+    com.tfyre.bambu.model.AmsSingle.class,
+    com.tfyre.bambu.model.Ams.class,
+    com.tfyre.bambu.model.LightsReport.class,
+    com.tfyre.bambu.model.Ipcam.class,
+    com.tfyre.bambu.model.UpgradeState.class,
+    com.tfyre.bambu.model.Hms.class,
+    com.tfyre.bambu.model.Filam.class,
+    com.tfyre.bambu.model.NetInfo.class,
+    com.tfyre.bambu.model.Net.class,
+    com.tfyre.bambu.model.Xcam.class,
+    com.tfyre.bambu.model.Print.class,
+    com.tfyre.bambu.model.System.class,
+    com.tfyre.bambu.model.Module.class,
+    com.tfyre.bambu.model.Info.class,
+    com.tfyre.bambu.model.BambuMessage.class,
+    com.tfyre.bambu.model.EmptyOrBuilder.class,
+    com.tfyre.bambu.model.PushingOrBuilder.class,
+    com.tfyre.bambu.model.UploadOrBuilder.class,
+    com.tfyre.bambu.model.OnlineOrBuilder.class,
+    com.tfyre.bambu.model.TrayOrBuilder.class,
+    com.tfyre.bambu.model.AmsSingleOrBuilder.class,
+    com.tfyre.bambu.model.AmsOrBuilder.class,
+    com.tfyre.bambu.model.LightsReportOrBuilder.class,
+    com.tfyre.bambu.model.IpcamOrBuilder.class,
+    com.tfyre.bambu.model.UpgradeStateOrBuilder.class,
+    com.tfyre.bambu.model.HmsOrBuilder.class,
+    com.tfyre.bambu.model.FilamOrBuilder.class,
+    com.tfyre.bambu.model.NetInfoOrBuilder.class,
+    com.tfyre.bambu.model.NetOrBuilder.class,
+    com.tfyre.bambu.model.XcamOrBuilder.class,
+    com.tfyre.bambu.model.PrintOrBuilder.class,
+    com.tfyre.bambu.model.SystemOrBuilder.class,
+    com.tfyre.bambu.model.ModuleOrBuilder.class,
+    com.tfyre.bambu.model.InfoOrBuilder.class,
+    com.tfyre.bambu.model.BambuMessageOrBuilder.class,
+    com.tfyre.schema.ObjectFactory.class,
+    com.tfyre.schema.Config.class,
+    com.tfyre.schema.Header.class,
+    com.tfyre.schema.HeaderItem.class,
+    com.tfyre.schema.Metadata.class,
+    com.tfyre.schema.Object.class,
+    com.tfyre.schema.Filament.class,
+    com.tfyre.schema.Warning.class,
+    com.tfyre.schema.Plate.class,
+    com.tfyre.bambu.view.batchprint.UploadManifest.Entry.class
+})
+public class ReflectionConfig {
+
+}
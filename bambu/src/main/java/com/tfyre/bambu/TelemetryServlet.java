@@ -0,0 +1,95 @@
+package com.tfyre.bambu;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.telemetry.TelemetryMetric;
+import com.tfyre.bambu.telemetry.TelemetryPoint;
+import com.tfyre.bambu.telemetry.TelemetryResolution;
+import com.tfyre.bambu.telemetry.TelemetryStore;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Telemetry history of a printer as json, points are [epoch second, min, max, avg, last].
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@WebServlet(urlPatterns = TelemetryServlet.PATH)
+public class TelemetryServlet extends HttpServlet {
+
+    public static final String PATH = "/telemetry";
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final int MAX_POINTS = 2_000;
+
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    TelemetryStore telemetryStore;
+
+    private boolean hasAccess(final HttpServletRequest req) {
+        return req.isUserInRole(SystemRoles.ROLE_ADMIN) || req.isUserInRole(SystemRoles.ROLE_NORMAL);
+    }
+
+    private <T> Optional<T> getParameter(final HttpServletRequest req, final String name, final Function<String, T> mapper) {
+        try {
+            return Optional.ofNullable(req.getParameter(name)).map(mapper);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+        if (!hasAccess(req)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        final Optional<String> printer = Optional.ofNullable(req.getParameter("printer"))
+                .filter(name -> printers.getPrinter(name).isPresent());
+        final Optional<TelemetryMetric> metric = getParameter(req, "metric", TelemetryMetric::valueOf);
+        if (printer.isEmpty() || metric.isEmpty()) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "printer and metric are required");
+            return;
+        }
+        final Instant to = getParameter(req, "to", Instant::parse).orElseGet(Instant::now);
+        final Instant from = getParameter(req, "from", Instant::parse).orElseGet(() -> to.minus(Duration.ofHours(1)));
+        if (!from.isBefore(to)) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "from must be before to");
+            return;
+        }
+        final TelemetryResolution resolution = getParameter(req, "resolution", TelemetryResolution::valueOf)
+                .orElseGet(() -> TelemetryResolution.forRange(Duration.between(from, to), MAX_POINTS));
+        if (Duration.between(from, to).toSeconds() / resolution.getBucketSeconds() > MAX_POINTS) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "more than %d points, use a shorter range or a coarser resolution".formatted(MAX_POINTS));
+            return;
+        }
+
+        final List<double[]> points = telemetryStore.query(printer.get(), metric.get(), from, to, resolution).stream()
+                .map(this::toArray)
+                .toList();
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "private, no-cache");
+        OM.writeValue(resp.getOutputStream(), Map.of(
+                "printer", printer.get(),
+                "metric", metric.get(),
+                "resolution", resolution,
+                "points", points
+        ));
+    }
+
+    private double[] toArray(final TelemetryPoint point) {
+        return new double[]{point.time().getEpochSecond(), point.min(), point.max(), point.avg(), point.last()};
+    }
+
+}
@@ -2,6 +2,7 @@ package com.tfyre.bambu.camel;
 
 import com.tfyre.bambu.BambuConfig;
 import com.tfyre.bambu.BambuConfig.Printer;
+import com.tfyre.bambu.BambuExecutors;
 import com.tfyre.bambu.CloudService;
 import com.tfyre.bambu.printer.BambuPrinters;
 import com.tfyre.bambu.mqtt.AbstractMqttController;
@@ -13,11 +14,12 @@ import jakarta.inject.Inject;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.StartupListener;
-import org.eclipse.microprofile.context.ManagedExecutor;
+import org.apache.camel.component.paho.PahoConstants;
 
 /**
  *
@@ -27,6 +29,8 @@ import org.eclipse.microprofile.context.ManagedExecutor;
 @ApplicationScoped
 public class CamelController extends AbstractMqttController implements StartupListener {
 
+    private static final String SHARED_GROUP = "mqtt-shared";
+
     @Inject
     BambuConfig config;
     @Inject
@@ -36,10 +40,14 @@ public class CamelController extends AbstractMqttController implements StartupLi
     BambuPrinters printers;
 
     @Inject
-    ManagedExecutor executor;
+    BambuExecutors executors;
 
     Optional<CloudService.Data> cloudData = Optional.empty();
 
+    private final Map<Broker, SharedBroker> brokers = new ConcurrentHashMap<>();
+    //cleanup of a printer outside of its routes
+    private final Map<String, Runnable> removers = new ConcurrentHashMap<>();
+
     @Override
     public void onCamelContextStarted(final CamelContext context, final boolean alreadyStarted) throws Exception {
 
@@ -47,7 +55,7 @@ public class CamelController extends AbstractMqttController implements StartupLi
 
     @Override
     public void onCamelContextFullyStarted(final CamelContext context, final boolean alreadyStarted) throws Exception {
-        executor.submit(() -> {
+        executors.blocking().execute(() -> {
             try {
                 printers.startPrinters();
             } catch (BambuPrinterException ex) {
@@ -74,6 +82,7 @@ public class CamelController extends AbstractMqttController implements StartupLi
         getCamelContext().addStartupListener(this);
         cloudData = cloud.getLoginData();
         config.printers().forEach(this::configurePrinter);
+        brokers.forEach((broker, shared) -> Log.infof("Shared MQTT: %s with %d printers", broker.url(), shared.demultiplexer().size()));
         Log.info("configured");
     }
 
@@ -81,39 +90,165 @@ public class CamelController extends AbstractMqttController implements StartupLi
         return config.mqtt().url().orElseGet(() -> "ssl://%s:%d".formatted(config.ip(), config.mqtt().port()));
     }
 
-    private Endpoint getMqttEndpoint(final String topic, final Printer printerConfig) {
+    private Broker getBroker(final Printer printerConfig) {
         return cloudData
-                .map(data -> getMqttEndpoint(topic, config.cloud().url(), data.username(), data.password()))
-                .orElseGet(() -> getMqttEndpoint(topic, getUrl(printerConfig), printerConfig.username(), printerConfig.accessCode()));
+                .map(data -> new Broker(config.cloud().url(), data.username(), data.password()))
+                .orElseGet(() -> new Broker(getUrl(printerConfig), printerConfig.username(), printerConfig.accessCode()));
+    }
+
+    private boolean isShared(final Printer printerConfig) {
+        //a custom report topic cannot be matched by the wildcard subscription
+        return config.sharedMqtt().enabled() && printerConfig.mqtt().reportTopic().isEmpty();
+    }
+
+    private String getName(final String id, final Printer config) {
+        return config.name().orElse(id);
     }
 
     private void configurePrinter(final String id, final Printer config) {
-        final String name = config.name().orElse(id);
+        final String name = getName(id, config);
+        if (!config.enabled()) {
+            Log.infof("Skipping: id[%s] as name[%s]", id, name);
+            return;
+        }
+        try {
+            includeRoutes(new PrinterRoutes(id, name, config));
+        } catch (Exception ex) {
+            Log.errorf(ex, "%s: Cannot configure: %s", name, ex.getMessage());
+        }
+    }
+
+    /**
+     * Adds a printer while running, its routes are added to the context and only this printer is started.
+     *
+     * @param id the printer id
+     * @param config the printer config
+     * @throws BambuPrinterException when the routes cannot be added or the printer cannot start
+     */
+    public synchronized void addPrinter(final String id, final Printer config) throws BambuPrinterException {
+        final String name = getName(id, config);
         if (!config.enabled()) {
             Log.infof("Skipping: id[%s] as name[%s]", id, name);
             return;
         }
-        Log.infof("Configuring: id[%s] as name[%s]", id, name);
-        final String producerTopic = getTopic(config.mqtt().requestTopic(), config.deviceId(), "request");
-        final String consumerTopic = getTopic(config.mqtt().reportTopic(), config.deviceId(), "report");
-        final Endpoint producer = getMqttEndpoint(producerTopic, config);
-        final Endpoint consumer = getMqttEndpoint(consumerTopic, config);
-        final Endpoint printer = getPrinterEndpoint(name);
-
-        final BambuPrinters.PrinterDetail detail = printers.newPrinter(id, name, config, printer);
-
-        //producer
-        from(printer)
-                .id("producer-%s".formatted(name))
-                .autoStartup(false)
-                .group(name)
-                .to(producer);
-        //consumer
-        from(consumer)
-                .id("consumer-%s".formatted(name))
-                .autoStartup(false)
-                .group(name)
-                .process(detail.processor());
+        if (printers.getPrinterDetail(name).isPresent()) {
+            throw new BambuPrinterException("%s: already exists".formatted(name));
+        }
+        try {
+            getContext().addRoutes(new PrinterRoutes(id, name, config));
+        } catch (Exception ex) {
+            throw new BambuPrinterException("%s: Cannot add routes: %s".formatted(name, ex.getMessage()), ex);
+        }
+        printers.startPrinter(name);
+    }
+
+    /**
+     * Stops a printer and removes its routes, the rest of the farm is untouched.
+     *
+     * @param name the printer name
+     * @throws BambuPrinterException when the printer is unknown or cannot be stopped
+     */
+    public synchronized void removePrinter(final String name) throws BambuPrinterException {
+        Optional.ofNullable(removers.remove(name)).ifPresent(Runnable::run);
+        printers.removePrinter(name);
+    }
+
+    /**
+     * Routes of one printer, added while configuring or later while running.
+     */
+    private class PrinterRoutes extends AbstractMqttController {
+
+        private final String id;
+        private final String name;
+        private final Printer config;
+
+        private PrinterRoutes(final String id, final String name, final Printer config) {
+            this.id = id;
+            this.name = name;
+            this.config = config;
+        }
+
+        private Endpoint getMqttEndpoint(final String topic, final Broker broker) {
+            return getMqttEndpoint(topic, broker.url(), broker.username(), broker.password());
+        }
+
+        private SharedBroker configureBroker(final Broker broker) {
+            final int index = brokers.size() + 1;
+            final Endpoint producer = endpoint("direct:bambu-mqtt-%d".formatted(index));
+            final MqttDemultiplexer demultiplexer = new MqttDemultiplexer(broker.url(), getContext().createProducerTemplate());
+            //producer, the request topic is set per message
+            from(producer)
+                    .id("producer-mqtt-%d".formatted(index))
+                    .group(SHARED_GROUP)
+                    .to(getMqttEndpoint(getTopic(Optional.empty(), "shared", "request"), broker));
+            //consumer
+            from(getMqttEndpoint(getTopic(Optional.empty(), "+", "report"), broker))
+                    .id("consumer-mqtt-%d".formatted(index))
+                    .group(SHARED_GROUP)
+                    .process(demultiplexer);
+            return new SharedBroker(producer, demultiplexer);
+        }
+
+        private void configureShared(final String producerTopic, final String consumerTopic, final BambuPrinters.PrinterDetail detail, final Endpoint printer) {
+            final SharedBroker shared = brokers.computeIfAbsent(getBroker(config), this::configureBroker);
+            //reports of a stopped printer are dropped instead of waiting for its route
+            final Endpoint report = endpoint("direct:bambu-report-%s?block=false&failIfNoConsumers=false".formatted(name));
+            shared.demultiplexer().add(consumerTopic, report);
+            removers.put(name, () -> shared.demultiplexer().remove(consumerTopic));
+
+            //producer
+            from(printer)
+                    .id("producer-%s".formatted(name))
+                    .autoStartup(false)
+                    .group(name)
+                    .setHeader(PahoConstants.CAMEL_PAHO_OVERRIDE_TOPIC, constant(producerTopic))
+                    .to(shared.producer());
+            //consumer
+            from(report)
+                    .id("consumer-%s".formatted(name))
+                    .autoStartup(false)
+                    .group(name)
+                    .process(detail.processor());
+        }
+
+        @Override
+        public void configure() throws Exception {
+            Log.infof("Configuring: id[%s] as name[%s]", id, name);
+            final String producerTopic = getTopic(config.mqtt().requestTopic(), config.deviceId(), "request");
+            final String consumerTopic = getTopic(config.mqtt().reportTopic(), config.deviceId(), "report");
+            final Endpoint printer = getPrinterEndpoint(name);
+
+            final BambuPrinters.PrinterDetail detail = printers.newPrinter(id, name, config, printer);
+            if (isShared(config)) {
+                configureShared(producerTopic, consumerTopic, detail, printer);
+                return;
+            }
+            final Broker broker = getBroker(config);
+            final Endpoint producer = getMqttEndpoint(producerTopic, broker);
+            final Endpoint consumer = getMqttEndpoint(consumerTopic, broker);
+
+            //producer
+            from(printer)
+                    .id("producer-%s".formatted(name))
+                    .autoStartup(false)
+                    .group(name)
+                    .to(producer);
+            //consumer
+            from(consumer)
+                    .id("consumer-%s".formatted(name))
+                    .autoStartup(false)
+                    .group(name)
+                    .process(detail.processor());
+        }
+
+    }
+
+    private record Broker(String url, String username, String password) {
+
+    }
+
+    private record SharedBroker(Endpoint producer, MqttDemultiplexer demultiplexer) {
+
     }
 
 }
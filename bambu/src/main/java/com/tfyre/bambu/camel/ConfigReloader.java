@@ -0,0 +1,204 @@
+package com.tfyre.bambu.camel;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.printer.BambuPrinterException;
+import com.tfyre.bambu.printer.BambuPrinters;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.configuration.ConfigUtils;
+import io.quarkus.runtime.configuration.DurationConverter;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.runtime.configuration.MemorySizeConverter;
+import io.quarkus.scheduler.Scheduler;
+import io.smallrye.config.EnvConfigSource;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * Reloads the printers section when {@code .env} or {@code config/application.properties} changes.
+ *
+ * The files are read into a new config, printers whose properties changed or were removed are stopped and their routes
+ * removed, new and changed printers are added and started. Other printers keep their MQTT and camera sessions. Settings
+ * outside the printers section still need a restart.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class ConfigReloader {
+
+    private static final Path ENV = Path.of(".env");
+    private static final Path APPLICATION = Path.of("config", "application.properties");
+    private static final String PREFIX = "bambu.printers.";
+
+    @Inject
+    BambuConfig config;
+    @Inject
+    Scheduler scheduler;
+    @Inject
+    CamelController controller;
+    @Inject
+    BambuPrinters printers;
+
+    private Map<Path, Long> modified = Map.of();
+    private Map<String, Map<String, String>> properties = Map.of();
+
+    void onStart(@Observes final StartupEvent event) {
+        if (!config.configReload().enabled()) {
+            return;
+        }
+        modified = getModified();
+        try {
+            properties = getPrinterProperties(load());
+        } catch (IOException | RuntimeException ex) {
+            Log.errorf(ex, "Cannot read config, reloading disabled: %s", ex.getMessage());
+            return;
+        }
+        scheduler.newJob("%s.check".formatted(getClass().getName()))
+                .setInterval(config.configReload().interval().toString())
+                .setTask(e -> check())
+                .schedule();
+    }
+
+    private Map<Path, Long> getModified() {
+        final Map<Path, Long> result = new HashMap<>();
+        List.of(ENV, APPLICATION).forEach(path -> result.put(path, path.toFile().lastModified()));
+        return result;
+    }
+
+    private void check() {
+        final Map<Path, Long> current = getModified();
+        if (current.equals(modified)) {
+            return;
+        }
+        modified = current;
+        Log.info("Config changed, reloading printers");
+        try {
+            reload();
+        } catch (BambuPrinterException ex) {
+            Log.error(ex.getMessage(), ex);
+        }
+    }
+
+    private Map<String, String> readEnv() throws IOException {
+        final Properties result = new Properties();
+        try (Reader reader = Files.newBufferedReader(ENV)) {
+            result.load(reader);
+        }
+        final Map<String, String> map = new HashMap<>();
+        result.stringPropertyNames().forEach(name -> map.put(name, result.getProperty(name)));
+        return map;
+    }
+
+    /**
+     * Same sources and ordinals as the Quarkus startup config.
+     */
+    private SmallRyeConfig load() throws IOException {
+        final SmallRyeConfigBuilder builder = new SmallRyeConfigBuilder()
+                .addDefaultSources()
+                .withProfiles(ConfigUtils.getProfiles())
+                .withConverter(Duration.class, 200, new DurationConverter())
+                .withConverter(MemorySize.class, 200, new MemorySizeConverter())
+                .withMapping(BambuConfig.class)
+                .withValidateUnknown(false);
+        final URL defaults = Thread.currentThread().getContextClassLoader().getResource("application.properties");
+        if (defaults != null) {
+            builder.withSources(new PropertiesConfigSource(defaults, 250));
+        }
+        if (Files.isRegularFile(APPLICATION)) {
+            builder.withSources(new PropertiesConfigSource(APPLICATION.toUri().toURL(), 260));
+        }
+        if (Files.isRegularFile(ENV)) {
+            builder.withSources(new EnvConfigSource(readEnv(), 295));
+        }
+        return builder.build();
+    }
+
+    private String getId(final String property) {
+        final String rest = property.substring(PREFIX.length());
+        if (rest.startsWith("\"")) {
+            final int end = rest.indexOf('"', 1);
+            return end == -1 ? "" : rest.substring(1, end);
+        }
+        final int end = rest.indexOf('.');
+        return end == -1 ? "" : rest.substring(0, end);
+    }
+
+    private Map<String, Map<String, String>> getPrinterProperties(final Config source) {
+        final Map<String, Map<String, String>> result = new HashMap<>();
+        for (final String name : source.getPropertyNames()) {
+            if (!name.startsWith(PREFIX)) {
+                continue;
+            }
+            final String id = getId(name);
+            if (id.isEmpty()) {
+                continue;
+            }
+            source.getOptionalValue(name, String.class)
+                    .ifPresent(value -> result.computeIfAbsent(id, k -> new TreeMap<>()).put(name, value));
+        }
+        return result;
+    }
+
+    /**
+     * Applies the printers section of the current files.
+     *
+     * @throws BambuPrinterException when the config is invalid or printers cannot be removed or added
+     */
+    public synchronized void reload() throws BambuPrinterException {
+        final SmallRyeConfig source;
+        try {
+            source = load();
+        } catch (IOException | RuntimeException ex) {
+            throw new BambuPrinterException("Cannot read config: %s".formatted(ex.getMessage()), ex);
+        }
+        final BambuConfig fresh = source.getConfigMapping(BambuConfig.class);
+        final Map<String, Map<String, String>> freshProperties = getPrinterProperties(source);
+        final List<String> errors = new ArrayList<>();
+
+        for (final BambuPrinters.PrinterDetail detail : List.copyOf(printers.getPrintersDetail())) {
+            if (fresh.printers().containsKey(detail.id()) && Objects.equals(properties.get(detail.id()), freshProperties.get(detail.id()))) {
+                continue;
+            }
+            try {
+                controller.removePrinter(detail.name());
+            } catch (BambuPrinterException ex) {
+                errors.add(ex.getMessage());
+            }
+        }
+        fresh.printers().forEach((id, printer) -> {
+            if (printers.getPrinterDetail(printer.name().orElse(id)).isPresent()) {
+                return;
+            }
+            try {
+                controller.addPrinter(id, printer);
+            } catch (BambuPrinterException ex) {
+                errors.add(ex.getMessage());
+            }
+        });
+        properties = freshProperties;
+
+        if (errors.isEmpty()) {
+            return;
+        }
+        throw new BambuPrinterException("Errors with reload: %s".formatted(errors));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.tfyre.bambu.camel;
+
+import io.quarkus.logging.Log;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.paho.PahoConstants;
+
+/**
+ * Receives the reports of all printers on one broker through a wildcard subscription and hands each report to the consumer
+ * route of the printer owning the topic.
+ *
+ * The consumer routes stay in the printer group, so starting and stopping a printer works as with its own subscription,
+ * reports of stopped or unknown printers are dropped.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class MqttDemultiplexer implements Processor {
+
+    private final String url;
+    private final ProducerTemplate producerTemplate;
+    private final Map<String, Endpoint> printers = new ConcurrentHashMap<>();
+
+    public MqttDemultiplexer(final String url, final ProducerTemplate producerTemplate) {
+        this.url = url;
+        this.producerTemplate = producerTemplate;
+    }
+
+    /**
+     * @param topic the report topic of the printer
+     * @param endpoint the consumer route of the printer, it must not fail or block without a consumer
+     */
+    public void add(final String topic, final Endpoint endpoint) {
+        printers.put(topic, endpoint);
+    }
+
+    public void remove(final String topic) {
+        printers.remove(topic);
+    }
+
+    public int size() {
+        return printers.size();
+    }
+
+    @Override
+    public void process(final Exchange exchange) throws Exception {
+        final String topic = exchange.getMessage().getHeader(PahoConstants.MQTT_TOPIC, String.class);
+        final Optional<Endpoint> endpoint = Optional.ofNullable(topic).map(printers::get);
+        if (endpoint.isEmpty()) {
+            Log.debugf("%s: Unknown topic [%s]", url, topic);
+            return;
+        }
+        producerTemplate.send(endpoint.get(), exchange);
+    }
+
+}
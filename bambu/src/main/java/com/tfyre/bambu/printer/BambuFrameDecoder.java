@@ -0,0 +1,108 @@
+package com.tfyre.bambu.printer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.quarkus.logging.Log;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import java.util.function.Consumer;
+
+/**
+ * Splits the camera stream into JPEG frames.
+ *
+ * Every frame has a 16 byte header, the frame size as int LE followed by 12 unused bytes. Only the header is copied, the
+ * frame is a composite of retained slices of the received chunks and is owned by the consumer, who must release it.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class BambuFrameDecoder implements Handler<Buffer> {
+
+    private static final int HEADER_SIZE = 16;
+
+    private final String name;
+    private final int maxSize;
+    private final Consumer<ByteBuf> consumer;
+    private final Runnable onError;
+    private final ByteBuf header = Unpooled.buffer(HEADER_SIZE, HEADER_SIZE);
+    private CompositeByteBuf frame;
+    private int remaining = -1;
+    private long bytesCopied;
+    private long frames;
+
+    public BambuFrameDecoder(final String name, final int maxSize, final Consumer<ByteBuf> consumer, final Runnable onError) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.consumer = consumer;
+        this.onError = onError;
+    }
+
+    @Override
+    public void handle(final Buffer event) {
+        //a duplicate of the chunk, the slices below share its memory
+        final ByteBuf chunk = event.getByteBuf();
+        while (chunk.isReadable()) {
+            if (remaining < 0 && !readHeader(chunk)) {
+                return;
+            }
+            final int size = Math.min(remaining, chunk.readableBytes());
+            if (size > 0) {
+                frame.addComponent(true, chunk.readRetainedSlice(size));
+                remaining -= size;
+            }
+            if (remaining == 0) {
+                emit();
+            }
+        }
+    }
+
+    private boolean readHeader(final ByteBuf chunk) {
+        final int size = Math.min(header.writableBytes(), chunk.readableBytes());
+        header.writeBytes(chunk, size);
+        bytesCopied += size;
+        if (header.isWritable()) {
+            return false;
+        }
+        final int frameSize = header.readIntLE();
+        header.clear();
+        Log.debugf("%s: size %d", name, frameSize);
+        if (frameSize < 0 || frameSize > maxSize) {
+            Log.errorf("%s: Invalid frame size %d, resetting stream", name, frameSize);
+            chunk.skipBytes(chunk.readableBytes());
+            onError.run();
+            return false;
+        }
+        remaining = frameSize;
+        frame = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        return true;
+    }
+
+    private void emit() {
+        final ByteBuf result = frame;
+        frame = null;
+        remaining = -1;
+        frames++;
+        Log.tracef("%s: frame %d bytes, copied %d bytes per frame", name, result.readableBytes(), bytesCopied / frames);
+        consumer.accept(result);
+    }
+
+    /**
+     * @return average bytes copied per frame, only the headers are copied
+     */
+    public long getBytesCopiedPerFrame() {
+        return frames == 0 ? 0 : bytesCopied / frames;
+    }
+
+    /**
+     * Releases a partially received frame.
+     */
+    public void close() {
+        if (frame != null) {
+            frame.release();
+            frame = null;
+        }
+        remaining = -1;
+        header.clear();
+    }
+
+}
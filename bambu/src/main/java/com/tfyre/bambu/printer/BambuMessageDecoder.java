@@ -0,0 +1,213 @@
+package com.tfyre.bambu.printer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.tfyre.bambu.model.BambuMessage;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming JSON decoder for {@link BambuMessage}.
+ *
+ * {@link com.google.protobuf.util.JsonFormat} first builds a complete Gson tree of the report before merging it into the
+ * builder, this decoder reads the MQTT payload token by token straight into the builder. Like the JsonFormat parser it
+ * accepts proto and json field names, ignores unknown fields, accepts quoted numbers and rejects fractions in integer
+ * fields. The benchmark module checks that both decode the sample reports to the same message.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class BambuMessageDecoder {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final Map<Descriptor, Map<String, FieldDescriptor>> fieldsCache = new ConcurrentHashMap<>();
+
+    public BambuMessage decode(final byte[] data) throws IOException {
+        final BambuMessage.Builder builder = BambuMessage.newBuilder();
+        try (final JsonParser parser = FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected start of object");
+            }
+            readMessage(parser, builder);
+        }
+        return builder.build();
+    }
+
+    private Map<String, FieldDescriptor> getFields(final Descriptor descriptor) {
+        return fieldsCache.computeIfAbsent(descriptor, d -> {
+            final Map<String, FieldDescriptor> result = new HashMap<>();
+            d.getFields().forEach(fd -> {
+                result.put(fd.getName(), fd);
+                result.put(fd.getJsonName(), fd);
+            });
+            return result;
+        });
+    }
+
+    private void readMessage(final JsonParser parser, final Message.Builder builder) throws IOException {
+        final Map<String, FieldDescriptor> fields = getFields(builder.getDescriptorForType());
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final FieldDescriptor fd = fields.get(parser.currentName());
+            final JsonToken token = parser.nextToken();
+            if (fd == null || token == JsonToken.VALUE_NULL) {
+                parser.skipChildren();
+                continue;
+            }
+            if (fd.isRepeated()) {
+                readRepeated(parser, builder, fd);
+            } else if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+                if (token == JsonToken.START_OBJECT) {
+                    readMessage(parser, builder.getFieldBuilder(fd));
+                } else {
+                    parser.skipChildren();
+                }
+            } else {
+                readValue(parser, fd).ifPresent(value -> builder.setField(fd, value));
+            }
+        }
+    }
+
+    private void readRepeated(final JsonParser parser, final Message.Builder builder, final FieldDescriptor fd) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (fd.getJavaType() != FieldDescriptor.JavaType.MESSAGE) {
+                readValue(parser, fd).ifPresent(value -> builder.addRepeatedField(fd, value));
+            } else if (parser.currentToken() == JsonToken.START_OBJECT) {
+                final Message.Builder child = builder.newBuilderForField(fd);
+                readMessage(parser, child);
+                builder.addRepeatedField(fd, child.build());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private Optional<Object> readValue(final JsonParser parser, final FieldDescriptor fd) throws IOException {
+        if (!parser.currentToken().isScalarValue() || parser.currentToken() == JsonToken.VALUE_NULL) {
+            parser.skipChildren();
+            return Optional.empty();
+        }
+        //assigning to Object boxes each branch to the type protobuf expects for the field
+        final Object result = switch (fd.getJavaType()) {
+            case INT ->
+                readInt(parser, fd);
+            case LONG ->
+                readLong(parser, fd);
+            case FLOAT ->
+                (float) parser.getValueAsDouble();
+            case DOUBLE ->
+                parser.getValueAsDouble();
+            case BOOLEAN ->
+                parser.getValueAsBoolean();
+            case STRING ->
+                parser.getValueAsString();
+            case BYTE_STRING ->
+                ByteString.copyFrom(parser.getBinaryValue());
+            case ENUM ->
+                getEnum(fd, parser.getValueAsString());
+            case MESSAGE ->
+                null;
+        };
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Only for floats and quoted numbers, which need the fraction check.
+     */
+    private BigDecimal readNumber(final JsonParser parser, final FieldDescriptor fd) throws IOException {
+        try {
+            return parser.currentToken().isNumeric() ? parser.getDecimalValue() : new BigDecimal(parser.getText().strip());
+        } catch (NumberFormatException ex) {
+            throw new JsonParseException(parser, "Not a number for [%s]: %s".formatted(fd.getName(), parser.getText()), ex);
+        }
+    }
+
+    private static boolean isLong(final JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER;
+    }
+
+    /**
+     * Like the JsonFormat parser, fractions and out of range values fail the report instead of being truncated.
+     */
+    private int readInt(final JsonParser parser, final FieldDescriptor fd) throws IOException {
+        final boolean unsigned = fd.getType() == FieldDescriptor.Type.UINT32 || fd.getType() == FieldDescriptor.Type.FIXED32;
+        //plain integers, the common case, without allocating
+        if (isLong(parser)) {
+            final long value = parser.getLongValue();
+            if (unsigned ? value >= 0 && value <= 0xFFFF_FFFFL : value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+            throw new JsonParseException(parser, "Not an int32 value for [%s]: %s".formatted(fd.getName(), parser.getText()));
+        }
+        final BigDecimal value = readNumber(parser, fd);
+        try {
+            return switch (fd.getType()) {
+                case UINT32, FIXED32 -> {
+                    final long result = value.longValueExact();
+                    if (result < 0 || result > 0xFFFF_FFFFL) {
+                        throw new ArithmeticException("Out of range");
+                    }
+                    yield (int) result;
+                }
+                default ->
+                    value.intValueExact();
+            };
+        } catch (ArithmeticException ex) {
+            throw new JsonParseException(parser, "Not an int32 value for [%s]: %s".formatted(fd.getName(), parser.getText()), ex);
+        }
+    }
+
+    private long readLong(final JsonParser parser, final FieldDescriptor fd) throws IOException {
+        if (isLong(parser)) {
+            final long value = parser.getLongValue();
+            if (value < 0 && (fd.getType() == FieldDescriptor.Type.UINT64 || fd.getType() == FieldDescriptor.Type.FIXED64)) {
+                throw new JsonParseException(parser, "Not an int64 value for [%s]: %s".formatted(fd.getName(), parser.getText()));
+            }
+            return value;
+        }
+        final BigDecimal value = readNumber(parser, fd);
+        try {
+            return switch (fd.getType()) {
+                case UINT64, FIXED64 -> {
+                    final BigInteger result = value.toBigIntegerExact();
+                    if (result.signum() < 0 || result.bitLength() > 64) {
+                        throw new ArithmeticException("Out of range");
+                    }
+                    yield result.longValue();
+                }
+                default ->
+                    value.longValueExact();
+            };
+        } catch (ArithmeticException ex) {
+            throw new JsonParseException(parser, "Not an int64 value for [%s]: %s".formatted(fd.getName(), parser.getText()), ex);
+        }
+    }
+
+    private EnumValueDescriptor getEnum(final FieldDescriptor fd, final String value) {
+        final EnumValueDescriptor result = fd.getEnumType().findValueByName(value);
+        if (result != null) {
+            return result;
+        }
+        try {
+            return fd.getEnumType().findValueByNumber(Integer.parseInt(value));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+}
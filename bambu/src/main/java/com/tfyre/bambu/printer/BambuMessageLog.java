@@ -0,0 +1,89 @@
+package com.tfyre.bambu.printer;
+
+import io.quarkus.logging.Log;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * History of received payloads, kept deflated and bounded by the compressed size.
+ *
+ * Backed by a {@link RingBuffer}, {@link #add} must only be called from the single thread consuming the printer reports,
+ * readers take a {@link RingBuffer.Snapshot} without locking.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class BambuMessageLog {
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final long maxBytes;
+    private final RingBuffer<BambuPrinter.LogMessage> messages;
+    private volatile long bytes;
+
+    public BambuMessageLog(final long maxBytes, final int maxItems) {
+        this.maxBytes = maxBytes;
+        this.messages = new RingBuffer<>(maxItems);
+    }
+
+    public static byte[] deflate(final byte[] data) {
+        final Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        //json compresses well, start small and grow when needed
+        byte[] result = new byte[Math.max(64, data.length / 4)];
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            size += deflater.deflate(result, size, result.length - size);
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    public static String inflate(final byte[] data, final int size) {
+        final Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data);
+        final byte[] result = new byte[size];
+        try {
+            int pos = 0;
+            while (pos < size && !inflater.finished()) {
+                final int read = inflater.inflate(result, pos, size - pos);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                pos += read;
+            }
+            return new String(result, 0, pos, StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            Log.errorf(ex, "Cannot inflate message: %s", ex.getMessage());
+            return "";
+        }
+    }
+
+    public void add(final OffsetDateTime lastUpdated, final byte[] data) {
+        final BambuPrinter.LogMessage message = new BambuPrinter.LogMessage(lastUpdated, data.length, deflate(data));
+        long total = bytes + message.data().length;
+        total -= messages.add(message).map(m -> m.data().length).orElse(0);
+        while (total > maxBytes && messages.size() > 1) {
+            total -= messages.removeFirst().map(m -> m.data().length).orElse(0);
+        }
+        bytes = total;
+    }
+
+    public RingBuffer<BambuPrinter.LogMessage>.Snapshot getMessages() {
+        return messages.snapshot();
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+}
@@ -2,11 +2,16 @@ package com.tfyre.bambu.printer;
 
 import com.tfyre.bambu.model.BambuMessage;
 import com.tfyre.bambu.printer.BambuConst.PrinterModel;
-import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.shared.Registration;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.IllegalReferenceCountException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.OffsetDateTime;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 /**
  *
@@ -28,47 +33,115 @@ public interface BambuPrinter {
 
     Optional<Message> getFullStatus();
 
+    BambuPrinterState getState();
+
     Optional<String> getIFrame();
 
     Optional<Thumbnail> getThumbnail();
 
-    Collection<Message> getLastMessages();
+    RingBuffer<LogMessage>.Snapshot getLastMessages();
+
+    /**
+     * Notified from the receiving thread when the state, thumbnail, blocked flag or liveness changed.
+     *
+     * @param listener receives the change
+     * @return remove the listener
+     */
+    Registration addChangeListener(final Consumer<Change> listener);
 
     boolean isBlocked();
 
     void setBlocked(final boolean blocked);
 
-    void commandFullStatus(final boolean force);
+    CompletionStage<Void> commandFullStatus(final boolean force);
+
+    CompletionStage<Void> commandClearPrinterError();
+
+    CompletionStage<Void> commandLight(BambuConst.LightMode lightMode);
+
+    CompletionStage<Void> commandControl(BambuConst.CommandControl control);
 
-    void commandClearPrinterError();
+    CompletionStage<Void> commandSpeed(BambuConst.Speed speed);
 
-    void commandLight(BambuConst.LightMode lightMode);
+    CompletionStage<Void> commandPrintGCodeLine(final String lines);
 
-    void commandControl(BambuConst.CommandControl control);
+    CompletionStage<Void> commandPrintGCodeLine(final List<String> lines);
 
-    void commandSpeed(BambuConst.Speed speed);
+    CompletionStage<Void> commandPrintGCodeFile(final String filename);
 
-    void commandPrintGCodeLine(final String lines);
+    CompletionStage<Void> commandPrintProjectFile(final CommandPPF command);
 
-    void commandPrintGCodeLine(final List<String> lines);
+    CompletionStage<Void> commandFilamentLoad(final int amsTrayId);
 
-    void commandPrintGCodeFile(final String filename);
+    CompletionStage<Void> commandFilamentUnload();
 
-    void commandPrintProjectFile(final CommandPPF command);
+    CompletionStage<Void> commandFilamentSetting(final int amsId, final int trayId, final Filament filament, final String color, final int minTemp, final int maxTemp);
 
-    void commandFilamentLoad(final int amsTrayId);
+    CompletionStage<Void> commandSystemReboot();
 
-    void commandFilamentUnload();
+    record Message(OffsetDateTime lastUpdated, BambuMessage message) {
 
-    void commandFilamentSetting(final int amsId, final int trayId, final Filament filament, final String color, final int minTemp, final int maxTemp);
+    }
+
+    /**
+     * @param printer the printer that changed
+     * @param reportReceived receive time of the report causing the change, empty for camera frames, blocking and liveness
+     */
+    record Change(BambuPrinter printer, Optional<OffsetDateTime> reportReceived) {
+
+    }
 
-    void commandSystemReboot();
+    record LogMessage(OffsetDateTime lastUpdated, int size, byte[] data) {
 
-    record Message(OffsetDateTime lastUpdated, BambuMessage message, String raw) {
+        public String raw() {
+            return BambuMessageLog.inflate(data, size);
+        }
 
     }
 
-    record Thumbnail(OffsetDateTime lastUpdated, StreamResource thumbnail) {
+    /**
+     * Latest camera frame, shared by all viewers and served by {@link com.tfyre.bambu.CameraServlet}.
+     *
+     * The data is reference counted and released by the printer when the next frame arrives, readers go through
+     * {@link #writeTo(OutputStream)} which holds a reference while writing.
+     */
+    record Thumbnail(OffsetDateTime lastUpdated, long id, ByteBuf data) {
+
+        public String etag() {
+            return "\"%d\"".formatted(id);
+        }
+
+        public int size() {
+            return data.readableBytes();
+        }
+
+        /**
+         * Keeps the frame from being released when the printer receives the next frame, {@link #release()} when done.
+         *
+         * @return false when the frame was already released
+         */
+        public boolean retain() {
+            try {
+                data.retain();
+                return true;
+            } catch (IllegalReferenceCountException ex) {
+                return false;
+            }
+        }
+
+        public void release() {
+            data.release();
+        }
+
+        /**
+         * Only call while holding a {@link #retain()}.
+         *
+         * @param out where to write the frame
+         * @throws IOException when writing fails
+         */
+        public void writeTo(final OutputStream out) throws IOException {
+            data.getBytes(data.readerIndex(), out, data.readableBytes());
+        }
 
     }
 
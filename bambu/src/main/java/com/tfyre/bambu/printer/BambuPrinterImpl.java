@@ -3,27 +3,38 @@ package com.tfyre.bambu.printer;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
 import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.BambuExecutors;
 import com.tfyre.bambu.model.BambuMessage;
 import com.tfyre.bambu.model.Print;
 import com.tfyre.bambu.model.Pushing;
 import com.tfyre.bambu.printer.BambuConst.PrinterModel;
 import com.tfyre.bambu.security.SecurityUtils;
+import com.tfyre.bambu.telemetry.TelemetryStore;
 import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.shared.Registration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.logging.Log;
-import io.quarkus.scheduler.Scheduler;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.Dependent;
 import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.OffsetDateTime;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
@@ -38,19 +49,21 @@ import org.apache.camel.ProducerTemplate;
 public class BambuPrinterImpl implements BambuPrinter, Processor {
 
     private static final JsonFormat.Printer PRINTER = JsonFormat.printer().preservingProtoFieldNames();
-    private static final JsonFormat.Parser PARSER = JsonFormat.parser().ignoringUnknownFields();
+    private static final BambuMessageDecoder DECODER = new BambuMessageDecoder();
 
-    private static final int MAX_ITEMS = 1_000;
     private static final Duration LASTUPDATED = Duration.ofMinutes(2);
 
     private String name;
     private BambuConfig.Printer config;
     private Optional<BambuPrinter.Message> status = Optional.empty();
     private Optional<BambuPrinter.Message> fullStatus = Optional.empty();
-    private Optional<BambuPrinter.Thumbnail> thumbnail = Optional.empty();
+    private volatile Optional<BambuPrinter.Thumbnail> thumbnail = Optional.empty();
     private Optional<String> iframe = Optional.empty();
+    private volatile BambuPrinterState state = BambuPrinterState.EMPTY;
 
-    private final BlockingQueue<BambuPrinter.Message> lastMessages = new LinkedBlockingQueue<>(MAX_ITEMS);
+    private BambuMessageLog lastMessages;
+    private final List<Consumer<BambuPrinter.Change>> listeners = new CopyOnWriteArrayList<>();
+    private BambuConst.GCodeState publishedGCodeState = BambuConst.GCodeState.OFFLINE;
     private final AtomicLong counter = new AtomicLong();
     private final AtomicBoolean running = new AtomicBoolean();
     private OffsetDateTime nextFullStatus = OffsetDateTime.now();
@@ -59,14 +72,26 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
     CamelContext context;
     @Inject
     BambuConfig bambuConfig;
+    @Inject
+    TelemetryStore telemetryStore;
+    @Inject
+    MeterRegistry registry;
+    @Inject
+    BambuExecutors executors;
 
     private Endpoint endpoint;
     private ProducerTemplate producerTemplate;
+    //reports are decoded and commands sent in the order they arrive
+    private Executor decoder;
+    private Executor sender;
     private int printerError;
     private int totalLayerNum;
     private BambuConst.GCodeState gcodeState = BambuConst.GCodeState.IDLE;
     private PrinterModel model = BambuConst.PrinterModel.UNKNOWN;
     private boolean blocked;
+    private Counter messageCounter;
+    private Timer parseTimer;
+    private Timer commandTimer;
 
     public BambuPrinterImpl() {
     }
@@ -78,7 +103,38 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
 
     @Override
     public void setBlocked(boolean blocked) {
+        if (this.blocked == blocked) {
+            return;
+        }
         this.blocked = blocked;
+        fireChanged(Optional.empty());
+    }
+
+    @Override
+    public Registration addChangeListener(final Consumer<BambuPrinter.Change> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    private void fireChanged(final Optional<OffsetDateTime> reportReceived) {
+        publishedGCodeState = getGCodeState();
+        final BambuPrinter.Change change = new BambuPrinter.Change(this, reportReceived);
+        listeners.forEach(l -> {
+            try {
+                l.accept(change);
+            } catch (RuntimeException ex) {
+                Log.errorf(ex, "%s: Listener failed: %s", name, ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Going offline is not driven by a report, publish it when noticed.
+     */
+    private void checkLiveness() {
+        if (getGCodeState() != publishedGCodeState) {
+            fireChanged(Optional.empty());
+        }
     }
 
     private void setLastPrint(final Print print) {
@@ -93,14 +149,10 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         }
     }
 
-    private void addLast(final BambuPrinter.Message message) {
-        while (lastMessages.remainingCapacity() <= 1) {
-            lastMessages.remove();
-        }
-        lastMessages.add(message);
-
+    private void setLastState(final BambuPrinter.Message message, final boolean full) {
         if (message.message().hasPrint()) {
             setLastPrint(message.message().getPrint());
+            state = state.merge(message.lastUpdated(), message.message().getPrint(), full);
         }
     }
 
@@ -115,16 +167,50 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         }
     }
 
-    public void setup(final Scheduler scheduler, final String name, final BambuConfig.Printer config, final Endpoint endpoint, final String id) {
+    public void setup(final String name, final BambuConfig.Printer config, final Endpoint endpoint, final String id) {
         this.name = name;
         this.model = config.model();
         this.config = config;
         this.endpoint = endpoint;
         buildIFrame(id);
-        scheduler.newJob("%s.requestFullStatus#%s".formatted(getClass().getName(), name))
-                .setInterval("1m")
-                .setTask(e -> commandFullStatusInternal(false, false))
-                .schedule();
+        decoder = executors.serialCpu(this::reportDropped);
+        sender = executors.serialBlocking();
+        messageCounter = registry.counter("bambu.printer.messages", "printer", name);
+        parseTimer = Timer.builder("bambu.printer.parse")
+                .description("Time to decode a received report")
+                .tag("printer", name)
+                .publishPercentileHistogram()
+                .register(registry);
+        commandTimer = Timer.builder("bambu.printer.command")
+                .description("Time to send a command to the broker")
+                .tag("printer", name)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Called every minute for all printers by {@link BambuPrintersImpl}.
+     */
+    void checkStatus() {
+        checkLiveness();
+        commandFullStatusInternal(false, false);
+    }
+
+    /**
+     * @return estimated heap held by the printer: message history, state and thumbnail
+     */
+    long getRetainedBytes() {
+        return lastMessages.getBytes()
+                + state.print().getSerializedSize()
+                + fullStatus.map(m -> m.message().getSerializedSize()).orElse(0)
+                + thumbnail.map(t -> t.data().capacity()).orElse(0);
+    }
+
+    /**
+     * @return time spent decoding reports
+     */
+    long getCpuNanos() {
+        return (long) parseTimer.totalTime(TimeUnit.NANOSECONDS);
     }
 
     @Override
@@ -142,13 +228,24 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         return status;
     }
 
-    public void setStatus(final BambuPrinter.Message status) {
-        addLast(status);
+    private void setStatus(final BambuPrinter.Message status, final boolean full) {
+        final long version = state.version();
+        setLastState(status, full);
         this.status = Optional.of(status);
+        if (state.version() != version) {
+            telemetryStore.record(name, state);
+        }
+        if (state.version() != version || publishedGCodeState == BambuConst.GCodeState.OFFLINE) {
+            fireChanged(Optional.of(status.lastUpdated()));
+        }
+    }
+
+    public void setStatus(final BambuPrinter.Message status) {
+        setStatus(status, false);
     }
 
     public void setFullStatus(final BambuPrinter.Message fullStatus) {
-        setStatus(fullStatus);
+        setStatus(fullStatus, true);
         this.fullStatus = Optional.of(fullStatus);
     }
 
@@ -179,6 +276,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         return fullStatus;
     }
 
+    @Override
+    public BambuPrinterState getState() {
+        return state;
+    }
+
     @Override
     public Optional<String> getIFrame() {
         return iframe;
@@ -190,45 +292,66 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
     }
 
     @Override
-    public Collection<Message> getLastMessages() {
-        return Collections.unmodifiableCollection(lastMessages);
+    public RingBuffer<LogMessage>.Snapshot getLastMessages() {
+        return lastMessages.getMessages();
     }
 
     public void setThumbnail(final BambuPrinter.Thumbnail thumbnail) {
+        final Optional<BambuPrinter.Thumbnail> previous = this.thumbnail;
         this.thumbnail = Optional.of(thumbnail);
+        previous.ifPresent(BambuPrinter.Thumbnail::release);
+        fireChanged(Optional.empty());
     }
 
-    private Optional<BambuMessage> fromJson(final String data) {
-        final BambuMessage.Builder builder = BambuMessage.newBuilder();
+    private Optional<BambuMessage> fromJson(final byte[] data) {
         try {
-            PARSER.merge(data, builder);
-            return Optional.of(builder.build());
-        } catch (InvalidProtocolBufferException ex) {
-            Log.errorf(ex, "Cannot build message: %s - %s", ex.getMessage(), data);
+            return Optional.of(DECODER.decode(data));
+        } catch (IOException | RuntimeException ex) {
+            Log.errorf(ex, "Cannot build message: %s - %s", ex.getMessage(), new String(data, StandardCharsets.UTF_8));
             return Optional.empty();
         }
     }
 
-    private Optional<String> toJson(final BambuMessage message) {
+    private CompletionStage<Void> send(final BambuMessage message) {
         try {
-            return Optional.of(PRINTER.print(message));
+            return sendData(PRINTER.print(message));
         } catch (InvalidProtocolBufferException ex) {
             Log.errorf(ex, "Cannot build message: %s", ex.getMessage());
-            return Optional.empty();
+            return CompletableFuture.failedFuture(ex);
         }
     }
 
     @Override
     public void process(final Exchange exchange) throws Exception {
         final org.apache.camel.Message message = exchange.getMessage();
-        final String body = message.getBody(String.class);
-        Log.debugf("%s: Received - [%d]", name, body.length());
-        Log.tracef("%s: Received RAW: %s", name, body);
+        final byte[] data = message.getBody(byte[].class);
+        Log.debugf("%s: Received - [%d]", name, data.length);
+        if (Log.isTraceEnabled()) {
+            Log.tracef("%s: Received RAW: %s", name, new String(data, StandardCharsets.UTF_8));
+        }
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        messageCounter.increment();
+        lastMessages.add(now, data);
+        decoder.execute(() -> decode(now, data));
+    }
+
+    /**
+     * Decoding fell behind and the oldest waiting report was dropped, the next full status repairs what it changed.
+     */
+    private void reportDropped() {
+        Log.debugf("%s: Decoding behind, dropped the oldest report", name);
+        commandFullStatusInternal(false, false);
+    }
 
-        fromJson(body)
-                .map(msg -> new BambuPrinter.Message(OffsetDateTime.now(), msg, body))
+    private void decode(final OffsetDateTime now, final byte[] data) {
+        final long start = System.nanoTime();
+        final Optional<BambuMessage> decoded = fromJson(data);
+        parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        decoded
+                .map(msg -> new BambuPrinter.Message(now, msg))
                 .ifPresent(msg -> {
-                    if (body.length() > 2_000) {
+                    if (isFullStatus(msg.message(), data.length)) {
                         setFullStatus(msg);
                     } else {
                         setStatus(msg);
@@ -236,14 +359,38 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                 });
     }
 
-    private void sendData(final String data) {
+    private boolean isFullStatus(final BambuMessage message, final int size) {
+        if (!message.hasPrint()) {
+            return false;
+        }
+        final Print print = message.getPrint();
+        //push_status with msg=0 is a full status, msg=1 is a delta
+        if (print.hasMsg() && "push_status".equals(print.getCommand())) {
+            return print.getMsg() == 0;
+        }
+        return size > 2_000;
+    }
+
+    /**
+     * @return completes once the broker accepted the command, exceptionally when it could not be sent
+     */
+    private CompletionStage<Void> sendData(final String data) {
         if (producerTemplate == null) {
             Log.debugf("%s: producerTemplate is null", name);
-            return;
+            return CompletableFuture.failedFuture(new IllegalStateException("%s: not started".formatted(name)));
         }
         Log.debugf("%s: Sending - [%d]", name, data.length());
         Log.tracef("%s: Sending RAW: %s", name, data);
-        producerTemplate.sendBody(endpoint, data);
+        try {
+            return CompletableFuture.runAsync(() -> commandTimer.record(() -> producerTemplate.sendBody(endpoint, data)), sender)
+                    .whenComplete((v, ex) -> {
+                        if (ex != null) {
+                            Log.errorf(ex, "%s: Cannot send: %s", name, ex.getMessage());
+                        }
+                    });
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
     }
 
     private void logUser(final String data) {
@@ -252,12 +399,12 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         Log.infof("%s user[%s] ip[%s]", data, user, ip);
     }
 
-    private void commandFullStatusInternal(final boolean fromUser, final boolean force) {
+    private CompletionStage<Void> commandFullStatusInternal(final boolean fromUser, final boolean force) {
         if (!running.get()) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         if (!force && nextFullStatus.isAfter(OffsetDateTime.now())) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
         nextFullStatus = OffsetDateTime.now().plus(config.mqtt().fullStatus());
         if (fromUser) {
@@ -274,18 +421,35 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setSequenceId("%d".formatted(counter.incrementAndGet()))
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandFullStatus(final boolean force) {
-        commandFullStatusInternal(true, force);
+    public CompletionStage<Void> commandFullStatus(final boolean force) {
+        return commandFullStatusInternal(true, force);
     }
 
     @PostConstruct
     public void postConstruct() {
         Log.debug("postConstruct");
         producerTemplate = context.createProducerTemplate();
+        lastMessages = new BambuMessageLog(bambuConfig.logs().maxSize().asLongValue(), bambuConfig.logs().maxItems());
+    }
+
+    /**
+     * Releases the last camera frame and the producer when the printer is removed.
+     */
+    @PreDestroy
+    public void preDestroy() {
+        Log.debugf("%s: preDestroy", name);
+        final Optional<BambuPrinter.Thumbnail> previous = thumbnail;
+        thumbnail = Optional.empty();
+        previous.ifPresent(BambuPrinter.Thumbnail::release);
+        try {
+            producerTemplate.stop();
+        } catch (RuntimeException ex) {
+            Log.errorf(ex, "%s: Cannot stop producer: %s", name, ex.getMessage());
+        }
     }
 
     public void start() {
@@ -300,7 +464,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
     }
 
     @Override
-    public void commandLight(final BambuConst.LightMode lightMode) {
+    public CompletionStage<Void> commandLight(final BambuConst.LightMode lightMode) {
         logUser("%s: commandLight %s".formatted(name, lightMode));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setSystem(
@@ -315,11 +479,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setIntervalTime(1000)
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandFilamentLoad(final int amsTrayId) {
+    public CompletionStage<Void> commandFilamentLoad(final int amsTrayId) {
         logUser("%s: commandFilamentLoad %d".formatted(name, amsTrayId));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setPrint(
@@ -331,11 +495,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setTarTemp(BambuConst.AMS_TRAY_TEMP)
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandFilamentSetting(final int amsId, final int trayId, final Filament filament, final String color, final int minTemp, final int maxTemp) {
+    public CompletionStage<Void> commandFilamentSetting(final int amsId, final int trayId, final Filament filament, final String color, final int minTemp, final int maxTemp) {
         logUser("%s: commandFilamentSetting ams[%d] tray[%d] filament[%s] color[%s] min[%d] max[%d]"
                 .formatted(name, amsId, trayId, filament, color, minTemp, maxTemp));
         final BambuMessage message = BambuMessage.newBuilder()
@@ -352,11 +516,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setTrayType(filament.getType().getDescription())
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandSystemReboot() {
+    public CompletionStage<Void> commandSystemReboot() {
         logUser("%s: commandSystemReboot".formatted(name));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setSystem(
@@ -365,11 +529,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setCommand("reboot")
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandFilamentUnload() {
+    public CompletionStage<Void> commandFilamentUnload() {
         logUser("%s: commandFilamentUnload".formatted(name));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setPrint(
@@ -378,11 +542,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setCommand("unload_filament")
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandControl(final BambuConst.CommandControl control) {
+    public CompletionStage<Void> commandControl(final BambuConst.CommandControl control) {
         logUser("%s: commandControl: %s".formatted(name, control));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setPrint(
@@ -392,11 +556,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setParam("")
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandSpeed(final BambuConst.Speed speed) {
+    public CompletionStage<Void> commandSpeed(final BambuConst.Speed speed) {
         logUser("%s: commandSpeed: %s".formatted(name, speed));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setPrint(
@@ -406,11 +570,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setParam("%d".formatted(speed.getSpeed()))
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandClearPrinterError() {
+    public CompletionStage<Void> commandClearPrinterError() {
         logUser("%s: commandClearPrinterError".formatted(name));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setPrint(
@@ -421,7 +585,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setPrintError(printerError)
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     private String stripSlash(final String fileName) {
@@ -432,7 +596,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
     }
 
     @Override
-    public void commandPrintGCodeLine(final String lines) {
+    public CompletionStage<Void> commandPrintGCodeLine(final String lines) {
         logUser("%s: commandPrintGCodeLine: [%s]".formatted(name, lines));
         final BambuMessage message = BambuMessage.newBuilder()
                 .setPrint(
@@ -443,16 +607,16 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                 )
                 .build();
 
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandPrintGCodeLine(final List<String> lines) {
-        commandPrintGCodeLine(String.join("\n", lines));
+    public CompletionStage<Void> commandPrintGCodeLine(final List<String> lines) {
+        return commandPrintGCodeLine(String.join("\n", lines));
     }
 
     @Override
-    public void commandPrintGCodeFile(final String filename) {
+    public CompletionStage<Void> commandPrintGCodeFile(final String filename) {
         final String _filename = stripSlash(filename);
         logUser("%s: commandPrintGCode: %s".formatted(name, _filename));
         final BambuMessage message = BambuMessage.newBuilder()
@@ -463,11 +627,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setParam("/sdcard/%s".formatted(_filename))
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
     @Override
-    public void commandPrintProjectFile(final CommandPPF command) {
+    public CompletionStage<Void> commandPrintProjectFile(final CommandPPF command) {
         final String _filename = stripSlash(command.filename());
         logUser("%s: commandPrintProject: %s ams[%s] timelapse[%s] bedlevelling[%s] flowCalibration[%s] amsMapping[%s]"
                 .formatted(name, _filename, command.useAms(), command.timelapse(), command.bedLevelling(), command.flowCalibration(), command.amsMapping()));
@@ -497,7 +661,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setUseAms(command.useAms())
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        return send(message);
     }
 
 }
@@ -0,0 +1,161 @@
+package com.tfyre.bambu.printer;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.tfyre.bambu.model.Print;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable merged view of all {@link Print} reports received from a printer.
+ *
+ * Every report is folded into the previous snapshot, the version is bumped when something changed and each top level field
+ * remembers the version it last changed in, so views can ask what changed since the version they last rendered.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class BambuPrinterState {
+
+    private static final int MAX_FIELD = Print.getDescriptor().getFields().stream()
+            .mapToInt(FieldDescriptor::getNumber)
+            .max()
+            .orElse(0);
+    //bookkeeping fields that are different on every report
+    private static final Set<Integer> IGNORED = Set.of(
+            Print.COMMAND_FIELD_NUMBER,
+            Print.MSG_FIELD_NUMBER,
+            Print.SEQUENCE_ID_FIELD_NUMBER
+    );
+
+    public static final BambuPrinterState EMPTY = new BambuPrinterState(0, OffsetDateTime.MIN, Print.getDefaultInstance(), new long[MAX_FIELD + 1]);
+
+    private final long version;
+    private final OffsetDateTime lastUpdated;
+    private final Print print;
+    private final long[] fieldVersions;
+
+    private BambuPrinterState(final long version, final OffsetDateTime lastUpdated, final Print print, final long[] fieldVersions) {
+        this.version = version;
+        this.lastUpdated = lastUpdated;
+        this.print = print;
+        this.fieldVersions = fieldVersions;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public OffsetDateTime lastUpdated() {
+        return lastUpdated;
+    }
+
+    public Print print() {
+        return print;
+    }
+
+    /**
+     * @param fieldNumber the {@link Print} field number, eg {@link Print#NOZZLE_TEMPER_FIELD_NUMBER}
+     * @param sinceVersion the last version the caller processed, use 0 to test for fields that have ever been received
+     * @return true when the field changed after sinceVersion
+     */
+    public boolean isChanged(final int fieldNumber, final long sinceVersion) {
+        if (fieldNumber < 0 || fieldNumber > MAX_FIELD) {
+            return false;
+        }
+        return fieldVersions[fieldNumber] > sinceVersion;
+    }
+
+    public boolean isChanged(final long sinceVersion) {
+        return version > sinceVersion;
+    }
+
+    public Set<Integer> getChanged(final long sinceVersion) {
+        return IntStream.rangeClosed(0, MAX_FIELD)
+                .filter(i -> fieldVersions[i] > sinceVersion)
+                .boxed()
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static boolean isPresent(final Message.Builder builder, final FieldDescriptor fd) {
+        return fd.isRepeated() ? builder.getRepeatedFieldCount(fd) > 0 : builder.hasField(fd);
+    }
+
+    /**
+     * Protobuf merge semantics append repeated fields, printers always send the complete list (eg ams trays, lights) so
+     * repeated fields are replaced and nested messages are merged.
+     */
+    private static Message mergeMessage(final Message base, final Message delta) {
+        final Message.Builder builder = base.toBuilder();
+        delta.getAllFields().forEach((fd, value) -> {
+            if (fd.isRepeated()) {
+                builder.clearField(fd);
+                builder.setField(fd, value);
+            } else if (fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+                builder.setField(fd, mergeMessage((Message) builder.getField(fd), (Message) value));
+            } else {
+                builder.setField(fd, value);
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Folds a report into this state.
+     *
+     * @param updated when the report was received
+     * @param delta the received report
+     * @param full when true the report is a complete status, fields missing from it are cleared
+     * @return a new state, the version is only incremented when a field changed
+     */
+    public BambuPrinterState merge(final OffsetDateTime updated, final Print delta, final boolean full) {
+        final long next = version + 1;
+        final long[] versions = fieldVersions.clone();
+        final Print.Builder builder = print.toBuilder();
+        final Map<FieldDescriptor, Object> fields = delta.getAllFields();
+        boolean changed = false;
+
+        if (full) {
+            for (final FieldDescriptor fd : print.getAllFields().keySet()) {
+                if (fields.containsKey(fd) || IGNORED.contains(fd.getNumber())) {
+                    continue;
+                }
+                builder.clearField(fd);
+                versions[fd.getNumber()] = next;
+                changed = true;
+            }
+        }
+
+        for (final Map.Entry<FieldDescriptor, Object> entry : fields.entrySet()) {
+            final FieldDescriptor fd = entry.getKey();
+            if (IGNORED.contains(fd.getNumber())) {
+                continue;
+            }
+            final boolean present = isPresent(builder, fd);
+            final Object value;
+            if (!full && present && !fd.isRepeated() && fd.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+                value = mergeMessage((Message) builder.getField(fd), (Message) entry.getValue());
+            } else {
+                value = entry.getValue();
+            }
+            if (present && Objects.equals(builder.getField(fd), value)) {
+                continue;
+            }
+            if (fd.isRepeated()) {
+                builder.clearField(fd);
+            }
+            builder.setField(fd, value);
+            versions[fd.getNumber()] = next;
+            changed = true;
+        }
+
+        if (!changed) {
+            return new BambuPrinterState(version, updated, print, fieldVersions);
+        }
+        return new BambuPrinterState(next, updated, builder.build(), versions);
+    }
+
+}
@@ -1,27 +1,34 @@
 package com.tfyre.bambu.printer;
 
 import com.tfyre.bambu.BambuConfig;
-import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.shared.Registration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.quarkus.logging.Log;
-import io.quarkus.scheduler.Scheduler;
-import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetClient;
-import io.vertx.core.net.NetClientOptions;
 import io.vertx.core.net.NetSocket;
 import jakarta.enterprise.context.Dependent;
 import jakarta.inject.Inject;
-import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.time.OffsetDateTime;
+import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
+ * Camera stream of a printer, only connected while someone is viewing it.
+ *
+ * Detail viewers get every frame, when only dashboard cards are viewing the socket is paused after each frame for
+ * {@link BambuConfig.Printer.Stream#overviewInterval()}. Without viewers the socket is closed after
+ * {@link BambuConfig.Printer.Stream#idleTimeout()}.
  *
  * @author Francois Steyn - (fsteyn@tfyre.co.za)
  */
@@ -33,42 +40,47 @@ public class BambuPrinterStream {
 
     private final NetClient client;
     private NetSocket socket;
+    private boolean connecting;
 
     private OffsetDateTime nextImage = OffsetDateTime.now();
 
     @Inject
     ScheduledExecutorService executor;
+    @Inject
+    MeterRegistry registry;
 
     private BambuConfig.Printer config;
     private boolean enabled;
     private String name;
     private Consumer<BambuPrinter.Thumbnail> consumer;
+    private Counter frameCounter;
+    private DistributionSummary frameBytes;
 
     private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger detailViewers = new AtomicInteger();
+    private final AtomicInteger overviewViewers = new AtomicInteger();
+    private Optional<ScheduledFuture<?>> idleFuture = Optional.empty();
+    private Optional<ScheduledFuture<?>> resumeFuture = Optional.empty();
+    //frame ids double as etags, start from the clock so they stay unique across restarts
+    private final AtomicLong frameId = new AtomicLong(System.currentTimeMillis());
 
     @Inject
-    public BambuPrinterStream(final Vertx vertx) {
-        final NetClientOptions options = new NetClientOptions()
-                .setHostnameVerificationAlgorithm("")
-                .setSsl(true)
-                .setTrustAll(true);
-        client = vertx.createNetClient(options);
+    public BambuPrinterStream(final CameraClientProvider clientProvider) {
+        client = clientProvider.getClient();
     }
 
-    public void setup(final boolean enabled, final Scheduler scheduler, final String name, final BambuConfig.Printer config, final Consumer<BambuPrinter.Thumbnail> consumer) {
+    public void setup(final boolean enabled, final String name, final BambuConfig.Printer config, final Consumer<BambuPrinter.Thumbnail> consumer) {
         this.enabled = enabled;
         this.name = name;
         this.config = config;
         this.consumer = consumer;
+        frameCounter = registry.counter("bambu.camera.frames", "printer", name);
+        frameBytes = DistributionSummary.builder("bambu.camera.frame.size")
+                .description("Size of received camera frames")
+                .baseUnit("bytes")
+                .tag("printer", name)
+                .register(registry);
 
-        if (!enabled) {
-            return;
-        }
-
-        scheduler.newJob("%s.checkLastImage#%s".formatted(getClass().getName(), name))
-                .setInterval("1m")
-                .setTask(e -> checkLastImage())
-                .schedule();
     }
 
     private Buffer getHandshake() {
@@ -86,56 +98,140 @@ public class BambuPrinterStream {
         return URI.create(config.stream().url().orElseGet(() -> "ssl://%s:%d".formatted(config.ip(), config.stream().port())));
     }
 
-    private void startStream() {
+    private boolean hasViewers() {
+        return detailViewers.get() + overviewViewers.get() > 0;
+    }
+
+    private synchronized void startStream() {
+        if (socket != null || connecting || !running.get() || !hasViewers()) {
+            return;
+        }
+        connecting = true;
+        nextImage = OffsetDateTime.now().plus(config.stream().watchDog());
+        Log.debugf("%s: connecting stream", name);
         final URI uri = getURI();
         client.connect(uri.getPort(), uri.getHost())
-                .onSuccess(_s -> {
-                    socket = _s;
-                    final ByteBuf buffer = Unpooled.buffer(0, MAX_SIZE);
-                    socket.handler(h -> {
-                        buffer.writeBytes(h.getBytes());
-                        Log.debugf("%s: readable %d", name, buffer.readableBytes());
-                        if (buffer.readableBytes() <= 16) {
-                            return;
-                        }
-
-                        buffer.markReaderIndex();
-                        final int size = buffer.readIntLE();
-                        Log.debugf("%s: size %d", name, size);
-                        buffer.skipBytes(4 + 8);
-                        if (buffer.readableBytes() < size) {
-                            buffer.resetReaderIndex();
-                            return;
-                        }
-
-                        final byte[] data = new byte[size];
-                        buffer.readBytes(data).discardReadBytes();
-
-                        consumer.accept(new BambuPrinter.Thumbnail(OffsetDateTime.now(), new StreamResource("image.jpg", () -> new ByteArrayInputStream(data))));
-                        nextImage = OffsetDateTime.now().plus(config.stream().watchDog());
-                    })
-                            .write(getHandshake())
-                            .onFailure(h -> {
-                                Log.errorf(h, "%s: socketFailure", name);
-                            });
-                })
+                .onSuccess(this::onConnected)
                 .onFailure(h -> {
+                    synchronized (this) {
+                        connecting = false;
+                    }
                     Log.errorf("%s: clientFailure: %s - %s", name, h.getClass().getName(), h.getMessage());
                 });
     }
 
-    private void closeSocket() {
+    private synchronized void onConnected(final NetSocket _s) {
+        connecting = false;
+        if (!running.get() || !hasViewers()) {
+            _s.close();
+            return;
+        }
+        socket = _s;
+        final BambuFrameDecoder decoder = new BambuFrameDecoder(name, MAX_SIZE, this::onFrame, this::closeSocket);
+        socket.closeHandler(v -> decoder.close());
+        socket.handler(decoder)
+                .write(getHandshake())
+                .onFailure(h -> {
+                    Log.errorf(h, "%s: socketFailure", name);
+                });
+    }
+
+    private void onFrame(final ByteBuf frame) {
+        if (!running.get()) {
+            frame.release();
+            return;
+        }
+        frameCounter.increment();
+        frameBytes.record(frame.readableBytes());
+        consumer.accept(new BambuPrinter.Thumbnail(OffsetDateTime.now(), frameId.incrementAndGet(), frame));
+        if (detailViewers.get() > 0) {
+            nextImage = OffsetDateTime.now().plus(config.stream().watchDog());
+            return;
+        }
+        //only dashboard cards are viewing, keep the connection but slow down to a keep alive rate
+        nextImage = OffsetDateTime.now().plus(config.stream().watchDog()).plus(config.stream().overviewInterval());
+        pauseSocket();
+    }
+
+    private synchronized void pauseSocket() {
+        if (socket == null || resumeFuture.isPresent()) {
+            return;
+        }
+        socket.pause();
+        resumeFuture = Optional.of(executor.schedule(this::resumeSocket, config.stream().overviewInterval().toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private synchronized void resumeSocket() {
+        resumeFuture.ifPresent(f -> f.cancel(false));
+        resumeFuture = Optional.empty();
+        if (socket != null) {
+            socket.resume();
+        }
+    }
+
+    private synchronized void closeSocket() {
+        resumeFuture.ifPresent(f -> f.cancel(false));
+        resumeFuture = Optional.empty();
         if (socket == null) {
             return;
         }
+        Log.debugf("%s: closing stream", name);
         socket.close();
         socket = null;
     }
 
-    public void checkLastImage() {
+    private synchronized void cancelIdle() {
+        idleFuture.ifPresent(f -> f.cancel(false));
+        idleFuture = Optional.empty();
+    }
+
+    private synchronized void onIdle() {
+        idleFuture = Optional.empty();
+        if (!hasViewers()) {
+            closeSocket();
+        }
+    }
+
+    private synchronized void updateDemand() {
         if (!running.get()) {
             return;
         }
+        if (!hasViewers()) {
+            if (socket != null && idleFuture.isEmpty()) {
+                idleFuture = Optional.of(executor.schedule(this::onIdle, config.stream().idleTimeout().toMillis(), TimeUnit.MILLISECONDS));
+            }
+            return;
+        }
+        cancelIdle();
+        if (detailViewers.get() > 0) {
+            resumeSocket();
+        }
+        startStream();
+    }
+
+    /**
+     * Registers a viewer of this camera, the stream connects when the first viewer arrives.
+     *
+     * @param detail true for the printer detail view, false for a dashboard card
+     * @return remove the viewer
+     */
+    public Registration addViewer(final boolean detail) {
+        final AtomicInteger viewers = detail ? detailViewers : overviewViewers;
+        viewers.incrementAndGet();
+        updateDemand();
+        final AtomicBoolean removed = new AtomicBoolean();
+        return () -> {
+            if (removed.compareAndSet(false, true)) {
+                viewers.decrementAndGet();
+                updateDemand();
+            }
+        };
+    }
+
+    public void checkLastImage() {
+        if (!running.get() || !hasViewers()) {
+            return;
+        }
         if (nextImage.isAfter(OffsetDateTime.now())) {
             return;
         }
@@ -150,7 +246,7 @@ public class BambuPrinterStream {
         }
         nextImage = OffsetDateTime.now();
         running.set(true);
-        startStream();
+        updateDemand();
     }
 
     public void stop() {
@@ -159,6 +255,7 @@ public class BambuPrinterStream {
         }
         running.set(false);
         Log.infof("%s: stopping", name);
+        cancelIdle();
         closeSocket();
     }
 
@@ -1,9 +1,12 @@
 package com.tfyre.bambu.printer;
 
 import com.tfyre.bambu.BambuConfig;
+import com.vaadin.flow.shared.Registration;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Processor;
 
@@ -27,16 +30,49 @@ public interface BambuPrinters {
 
     void stopPrinter(final String name) throws BambuPrinterException;
 
+    /**
+     * Stops the printer, removes its routes and forgets it.
+     *
+     * @param name the printer name
+     * @throws BambuPrinterException when the printer is unknown or cannot be stopped
+     */
+    void removePrinter(final String name) throws BambuPrinterException;
+
     void startPrinters() throws BambuPrinterException;
 
     void stopPrinters() throws BambuPrinterException;
 
-    record PrinterDetail(String id, String name, AtomicBoolean running, BambuConfig.Printer config, BambuPrinter printer, Processor processor, BambuPrinterStream stream) {
+    /**
+     * @param printer the printer whose camera is shown
+     * @param detail true for the printer detail view, false for a dashboard card
+     * @return remove the viewer
+     */
+    Registration addCameraViewer(final BambuPrinter printer, final boolean detail);
+
+    /**
+     * @param detail the printer
+     * @return estimated heap held and time spent decoding reports by the printer
+     */
+    Footprint getFootprint(final PrinterDetail detail);
+
+    record Footprint(long retainedBytes, long cpuNanos) {
+
+    }
+
+    record PrinterDetail(String id, String name, AtomicBoolean running, AtomicLong startupNanos, BambuConfig.Printer config, BambuPrinter printer, Processor processor, BambuPrinterStream stream) {
 
         public boolean isRunning() {
             return running.get();
         }
 
+        /**
+         * @return time the last start took
+         */
+        public Optional<Duration> getStartupTime() {
+            final long nanos = startupNanos.get();
+            return nanos == 0 ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+        }
+
     }
 
 }
@@ -1,20 +1,31 @@
 package com.tfyre.bambu.printer;
 
 import com.tfyre.bambu.BambuConfig;
+import com.vaadin.flow.shared.Registration;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.logging.Log;
 import io.quarkus.scheduler.Scheduler;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
@@ -38,12 +49,51 @@ public class BambuPrintersImpl implements BambuPrinters {
     Scheduler scheduler;
     @Inject
     BambuConfig bambuConfig;
+    @Inject
+    MeterRegistry registry;
 
-    private final Map<String, PrinterDetail> map = new HashMap<>();
+    private final Map<String, PrinterDetail> map = new ConcurrentHashMap<>();
+    private final AtomicBoolean firstReport = new AtomicBoolean();
+    //removed from all printers once the first report arrived
+    private final Map<String, Registration> firstReportListeners = new ConcurrentHashMap<>();
 
     public BambuPrintersImpl() {
     }
 
+    @PostConstruct
+    public void postConstruct() {
+        //one job for all printers instead of jobs per printer
+        scheduler.newJob("%s.checkPrinters".formatted(getClass().getName()))
+                .setInterval("1m")
+                .setTask(e -> checkPrinters())
+                .schedule();
+    }
+
+    private void onFirstReport(final BambuPrinter.Change change) {
+        //camera frames, blocking and liveness are not reports
+        if (change.reportReceived().isEmpty() || !firstReport.compareAndSet(false, true)) {
+            return;
+        }
+        firstReportListeners.values().forEach(Registration::remove);
+        firstReportListeners.clear();
+        //measured from the process start so JVM and native startup can be compared
+        final Instant received = change.reportReceived().get().toInstant();
+        final Duration duration = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, received))
+                .orElse(Duration.ZERO);
+        registry.timer("bambu.startup.first.report").record(duration);
+        Log.infof("%s: First printer report received %d ms after start", change.printer().getName(), duration.toMillis());
+    }
+
+    private void checkPrinters() {
+        map.values().forEach(pd -> {
+            if (pd.printer() instanceof BambuPrinterImpl impl) {
+                impl.checkStatus();
+            }
+            pd.stream().checkLastImage();
+        });
+    }
+
     @Override
     public Collection<BambuPrinter> getPrinters() {
         return map.values().stream()
@@ -68,19 +118,23 @@ public class BambuPrintersImpl implements BambuPrinters {
         final BambuPrinter printer = _bambuPrinter.get();
         Consumer<BambuPrinter.Thumbnail> consumer = getConsumer(name);
         if (printer instanceof BambuPrinterImpl impl) {
-            impl.setup(scheduler, name, config, endpoint, id);
+            impl.setup(name, config, endpoint, id);
             consumer = impl::setThumbnail;
         }
 
+        if (!firstReport.get()) {
+            firstReportListeners.put(name, printer.addChangeListener(this::onFirstReport));
+        }
+
         if (!Processor.class.isInstance(printer)) {
             throw new RuntimeException("%s does not implement %s".formatted(printer.getClass().getName(), Processor.class.getName()));
         }
 
         final BambuPrinterStream stream = _bambuPrinterStream.get();
         final boolean enabled = bambuConfig.remoteView() && config.stream().enabled() && !config.stream().liveView();
-        stream.setup(enabled, scheduler, name, config, consumer);
+        stream.setup(enabled, name, config, consumer);
 
-        final PrinterDetail result = new PrinterDetail(id, name, new AtomicBoolean(), config, printer, Processor.class.cast(printer), stream);
+        final PrinterDetail result = new PrinterDetail(id, name, new AtomicBoolean(), new AtomicLong(), config, printer, Processor.class.cast(printer), stream);
         map.put(name, result);
         return result;
     }
@@ -97,7 +151,9 @@ public class BambuPrintersImpl implements BambuPrinters {
             return;
         }
         Log.infof("%s: starting", detail.name());
+        final long start = System.nanoTime();
         try {
+            //the route controller starts one route at a time and paho connects while starting the route
             for (final Route r : getRoutes(detail)) {
                 try {
                     camelContext.getRouteController().startRoute(r.getRouteId());
@@ -105,12 +161,14 @@ public class BambuPrintersImpl implements BambuPrinters {
                     throw new BambuPrinterException("%s: Error starting route: %s".formatted(detail.name(), r.getRouteId()), ex);
                 }
             }
+            final long routes = System.nanoTime() - start;
             if (detail.printer() instanceof BambuPrinterImpl impl) {
                 impl.start();
             }
             detail.stream().start();
             detail.running().set(true);
-            Log.infof("%s: started", detail.name());
+            detail.startupNanos().set(Math.max(1, System.nanoTime() - start));
+            Log.infof("%s: started in %d ms, routes %d ms", detail.name(), detail.startupNanos().get() / 1_000_000, routes / 1_000_000);
         } catch (Throwable t) {
             throw new BambuPrinterException("Unknown Exception: %s".formatted(t), t);
         }
@@ -146,6 +204,22 @@ public class BambuPrintersImpl implements BambuPrinters {
                 .map(PrinterDetail::printer);
     }
 
+    @Override
+    public Registration addCameraViewer(final BambuPrinter printer, final boolean detail) {
+        return getPrinterDetail(printer.getName())
+                .map(pd -> pd.stream().addViewer(detail))
+                .orElse(() -> {
+                });
+    }
+
+    @Override
+    public Footprint getFootprint(final PrinterDetail detail) {
+        if (detail.printer() instanceof BambuPrinterImpl impl) {
+            return new Footprint(impl.getRetainedBytes(), impl.getCpuNanos());
+        }
+        return new Footprint(0, 0);
+    }
+
     @Override
     public Optional<PrinterDetail> getPrinterDetail(final String name) {
         return Optional.ofNullable(map.get(name));
@@ -166,15 +240,36 @@ public class BambuPrintersImpl implements BambuPrinters {
     }
 
     private void stopStart(final BambuPrinterConsumer<PrinterDetail> consumer) throws BambuPrinterException {
-        final List<String> errors = new ArrayList<>();
-        for (final PrinterDetail pd : map.values()) {
-            try {
-                consumer.accept(pd);
-            } catch (BambuPrinterException ex) {
-                final String message = "%s: %s".formatted(pd.name(), ex.getMessage());
-                errors.add(message);
-                Log.error(message, ex);
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        //unreachable printers wait for their connect timeouts, so a few printers are handled at the same time
+        final Semaphore permits = new Semaphore(Math.max(1, bambuConfig.startParallelism()));
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("printer-start-", 0).factory())) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final PrinterDetail pd : map.values()) {
+                futures.add(executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        consumer.accept(pd);
+                    } catch (BambuPrinterException ex) {
+                        final String message = "%s: %s".formatted(pd.name(), ex.getMessage());
+                        errors.add(message);
+                        Log.error(message, ex);
+                    } finally {
+                        permits.release();
+                    }
+                }));
             }
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    errors.add(ex.getCause().getMessage());
+                    Log.error(ex.getCause().getMessage(), ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BambuPrinterException("Interrupted with stopStart: %s".formatted(errors), ex);
         }
 
         if (errors.isEmpty()) {
@@ -183,9 +278,41 @@ public class BambuPrintersImpl implements BambuPrinters {
         throw new BambuPrinterException("Errors with stopStart: %s".formatted(errors));
     }
 
+    @Override
+    public void removePrinter(final String name) throws BambuPrinterException {
+        final PrinterDetail detail = getPrinterDetailE(name);
+        stopPrinter(detail);
+        Log.infof("%s: removing", name);
+        for (final Route r : getRoutes(detail)) {
+            try {
+                camelContext.removeRoute(r.getRouteId());
+            } catch (Exception ex) {
+                throw new BambuPrinterException("%s: Error removing route: %s".formatted(name, r.getRouteId()), ex);
+            }
+        }
+        map.remove(name);
+        Optional.ofNullable(firstReportListeners.remove(name)).ifPresent(Registration::remove);
+        registry.getMeters().stream()
+                .filter(m -> name.equals(m.getId().getTag("printer")))
+                .toList()
+                .forEach(registry::remove);
+        _bambuPrinterStream.destroy(detail.stream());
+        _bambuPrinter.destroy(detail.printer());
+        Log.infof("%s: removed", name);
+    }
+
     @Override
     public void startPrinters() throws BambuPrinterException {
-        stopStart(this::startPrinter);
+        final long start = System.nanoTime();
+        try {
+            stopStart(this::startPrinter);
+        } finally {
+            final long elapsed = Math.max(1, System.nanoTime() - start);
+            final long total = map.values().stream().mapToLong(pd -> pd.startupNanos().get()).sum();
+            //close to 1 when the starts did not overlap
+            Log.infof("Started %d printers in %d ms, %d ms added up, %.1f started at the same time on average",
+                    map.size(), elapsed / 1_000_000, total / 1_000_000, (double) total / elapsed);
+        }
     }
 
     @Override
@@ -0,0 +1,44 @@
+package com.tfyre.bambu.printer;
+
+import io.quarkus.logging.Log;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * One TLS client shared by all camera streams, instead of a client with its own SSL context per printer.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class CameraClientProvider {
+
+    @Inject
+    Vertx vertx;
+
+    private NetClient client;
+
+    @PostConstruct
+    public void postConstruct() {
+        final NetClientOptions options = new NetClientOptions()
+                .setHostnameVerificationAlgorithm("")
+                .setSsl(true)
+                .setTrustAll(true);
+        client = vertx.createNetClient(options);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        client.close()
+                .onFailure(ex -> Log.errorf(ex, "Cannot close camera client: %s", ex.getMessage()));
+    }
+
+    public NetClient getClient() {
+        return client;
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.tfyre.bambu.printer;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Fixed size ring buffer for one writer and many readers, the oldest item is overwritten when full.
+ *
+ * Items are addressed by an ever increasing sequence, the writer moves the tail before overwriting a slot so readers
+ * re-check the tail after reading a slot and drop items that were overwritten underneath them.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ * @param <T> immutable item type
+ */
+public final class RingBuffer<T> {
+
+    private final int capacity;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public RingBuffer(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: %d".formatted(capacity));
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    private int index(final long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    /**
+     * Only call from the writer thread.
+     *
+     * @param item the item to add
+     * @return the item that was overwritten to make space
+     */
+    public Optional<T> add(final T item) {
+        final long h = head.get();
+        final Optional<T> result;
+        if (h - tail.get() >= capacity) {
+            result = removeFirst();
+        } else {
+            result = Optional.empty();
+        }
+        slots.set(index(h), item);
+        head.set(h + 1);
+        return result;
+    }
+
+    /**
+     * Only call from the writer thread.
+     *
+     * @return the oldest item
+     */
+    public Optional<T> removeFirst() {
+        final long t = tail.get();
+        if (t >= head.get()) {
+            return Optional.empty();
+        }
+        final T result = slots.get(index(t));
+        tail.set(t + 1);
+        //release the item, readers re-check the tail and skip the empty slot
+        slots.set(index(t), null);
+        return Optional.ofNullable(result);
+    }
+
+    public int size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private Optional<T> get(final long sequence) {
+        final T result = slots.get(index(sequence));
+        if (sequence < tail.get()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Captures the current range without copying, items overwritten later are skipped while iterating.
+     *
+     * @return a view of the current items
+     */
+    public Snapshot snapshot() {
+        final long h = head.get();
+        return new Snapshot(Math.max(tail.get(), h - capacity), h);
+    }
+
+    public final class Snapshot implements Iterable<T> {
+
+        private final long from;
+        private final long to;
+
+        private Snapshot(final long from, final long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public int size() {
+            return (int) (to - from);
+        }
+
+        public boolean isEmpty() {
+            return to == from;
+        }
+
+        /**
+         * @return oldest first
+         */
+        public Stream<T> stream() {
+            return LongStream.range(from, to)
+                    .mapToObj(RingBuffer.this::get)
+                    .flatMap(Optional::stream);
+        }
+
+        /**
+         * @return newest first
+         */
+        public Stream<T> streamReversed() {
+            return LongStream.range(from, to)
+                    .map(seq -> to - 1 - (seq - from))
+                    .mapToObj(RingBuffer.this::get)
+                    .flatMap(Optional::stream);
+        }
+
+        /**
+         * Reads a page without touching the other items.
+         *
+         * @param offset position from the newest item
+         * @param limit maximum items
+         * @return newest first
+         */
+        public Stream<T> page(final int offset, final int limit) {
+            final long start = Math.max(from, to - offset - limit);
+            final long end = Math.max(start, to - offset);
+            return LongStream.range(start, end)
+                    .map(seq -> end - 1 - (seq - start))
+                    .mapToObj(RingBuffer.this::get)
+                    .flatMap(Optional::stream);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return stream().iterator();
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.tfyre.bambu.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Open aggregate of every metric for one bucket, not thread safe.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+final class TelemetryBucket {
+
+    private static final int METRICS = TelemetryMetric.values().length;
+
+    private final long start;
+    private final double[] min = new double[METRICS];
+    private final double[] max = new double[METRICS];
+    private final double[] sum = new double[METRICS];
+    private final double[] last = new double[METRICS];
+    private final long[] count = new long[METRICS];
+
+    TelemetryBucket(final long start) {
+        this.start = start;
+        Arrays.fill(min, Double.NaN);
+        Arrays.fill(max, Double.NaN);
+        Arrays.fill(last, Double.NaN);
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    boolean isEmpty() {
+        return Arrays.stream(count).allMatch(c -> c == 0);
+    }
+
+    void add(final TelemetryMetric metric, final double value) {
+        final int i = metric.ordinal();
+        min[i] = count[i] == 0 ? value : Math.min(min[i], value);
+        max[i] = count[i] == 0 ? value : Math.max(max[i], value);
+        sum[i] += value;
+        last[i] = value;
+        count[i]++;
+    }
+
+    /**
+     * Folds a finer bucket into this one, the finer bucket must be newer than everything merged before.
+     */
+    void merge(final TelemetryBucket other) {
+        for (int i = 0; i < METRICS; i++) {
+            if (other.count[i] == 0) {
+                continue;
+            }
+            min[i] = count[i] == 0 ? other.min[i] : Math.min(min[i], other.min[i]);
+            max[i] = count[i] == 0 ? other.max[i] : Math.max(max[i], other.max[i]);
+            sum[i] += other.sum[i];
+            last[i] = other.last[i];
+            count[i] += other.count[i];
+        }
+    }
+
+    double getMin(final int metric) {
+        return min[metric];
+    }
+
+    double getMax(final int metric) {
+        return max[metric];
+    }
+
+    double getAvg(final int metric) {
+        return count[metric] == 0 ? Double.NaN : sum[metric] / count[metric];
+    }
+
+    double getLast(final int metric) {
+        return last[metric];
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.tfyre.bambu.telemetry;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.tfyre.bambu.model.Print;
+import com.tfyre.bambu.printer.BambuConst;
+import java.util.OptionalDouble;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Values recorded from the merged {@link Print} state of a printer.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public enum TelemetryMetric {
+    NOZZLE_TEMPER(Print.NOZZLE_TEMPER_FIELD_NUMBER, Print::getNozzleTemper),
+    BED_TEMPER(Print.BED_TEMPER_FIELD_NUMBER, Print::getBedTemper),
+    CHAMBER_TEMPER(Print.CHAMBER_TEMPER_FIELD_NUMBER, Print::getChamberTemper),
+    COOLING_FAN_SPEED(Print.COOLING_FAN_SPEED_FIELD_NUMBER, p -> parseDouble(p.getCoolingFanSpeed())),
+    HEATBREAK_FAN_SPEED(Print.HEATBREAK_FAN_SPEED_FIELD_NUMBER, p -> parseDouble(p.getHeatbreakFanSpeed())),
+    BIG_FAN1_SPEED(Print.BIG_FAN1_SPEED_FIELD_NUMBER, p -> parseDouble(p.getBigFan1Speed())),
+    BIG_FAN2_SPEED(Print.BIG_FAN2_SPEED_FIELD_NUMBER, p -> parseDouble(p.getBigFan2Speed())),
+    MC_PERCENT(Print.MC_PERCENT_FIELD_NUMBER, Print::getMcPercent),
+    LAYER_NUM(Print.LAYER_NUM_FIELD_NUMBER, Print::getLayerNum),
+    //stored as the GCodeState ordinal, use the last value of a bucket
+    GCODE_STATE(Print.GCODE_STATE_FIELD_NUMBER, p -> BambuConst.GCodeState.fromValue(p.getGcodeState()).ordinal());
+
+    private final FieldDescriptor field;
+    private final ToDoubleFunction<Print> getter;
+
+    private TelemetryMetric(final int fieldNumber, final ToDoubleFunction<Print> getter) {
+        this.field = Print.getDescriptor().findFieldByNumber(fieldNumber);
+        this.getter = getter;
+    }
+
+    private static double parseDouble(final String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @param print merged printer state
+     * @return the value when the printer reported it
+     */
+    public OptionalDouble getValue(final Print print) {
+        if (!print.hasField(field)) {
+            return OptionalDouble.empty();
+        }
+        final double result = getter.applyAsDouble(print);
+        return Double.isNaN(result) ? OptionalDouble.empty() : OptionalDouble.of(result);
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.tfyre.bambu.telemetry;
+
+import java.time.Instant;
+
+/**
+ * One bucket of a metric.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public record TelemetryPoint(Instant time, double min, double max, double avg, double last) {
+
+}
@@ -0,0 +1,69 @@
+package com.tfyre.bambu.telemetry;
+
+import com.tfyre.bambu.BambuConfig;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Rollup levels, each bucket of a level is merged into the next level when it closes.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public enum TelemetryResolution {
+    SECOND(Duration.ofSeconds(1), Duration.ofHours(1), BambuConfig.Telemetry::secondRetention),
+    MINUTE(Duration.ofMinutes(1), Duration.ofDays(1), BambuConfig.Telemetry::minuteRetention),
+    HOUR(Duration.ofHours(1), Duration.ofDays(30), BambuConfig.Telemetry::hourRetention);
+
+    private final long bucketSeconds;
+    private final long segmentSeconds;
+    private final Function<BambuConfig.Telemetry, Duration> retention;
+
+    private TelemetryResolution(final Duration bucket, final Duration segment, final Function<BambuConfig.Telemetry, Duration> retention) {
+        this.bucketSeconds = bucket.toSeconds();
+        this.segmentSeconds = segment.toSeconds();
+        this.retention = retention;
+    }
+
+    public long getBucketSeconds() {
+        return bucketSeconds;
+    }
+
+    public long getSegmentSeconds() {
+        return segmentSeconds;
+    }
+
+    public Duration getRetention(final BambuConfig.Telemetry config) {
+        return retention.apply(config);
+    }
+
+    /**
+     * @param epochSecond a point in time
+     * @return start of the bucket holding it
+     */
+    public long floor(final long epochSecond) {
+        return Math.floorDiv(epochSecond, bucketSeconds) * bucketSeconds;
+    }
+
+    /**
+     * @param epochSecond a point in time
+     * @return start of the segment file holding it
+     */
+    public long segmentFloor(final long epochSecond) {
+        return Math.floorDiv(epochSecond, segmentSeconds) * segmentSeconds;
+    }
+
+    /**
+     * @param range the queried range
+     * @param maxPoints most points a chart wants
+     * @return the finest resolution with at most maxPoints buckets in the range
+     */
+    public static TelemetryResolution forRange(final Duration range, final int maxPoints) {
+        for (final TelemetryResolution resolution : values()) {
+            if (range.toSeconds() / resolution.bucketSeconds <= maxPoints) {
+                return resolution;
+            }
+        }
+        return HOUR;
+    }
+
+}
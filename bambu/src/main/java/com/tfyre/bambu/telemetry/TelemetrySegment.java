@@ -0,0 +1,211 @@
+package com.tfyre.bambu.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Closed buckets of one resolution for one segment window, stored column by column so each column compresses well.
+ *
+ * The file is a sequence of gzip members, one per write, each holding the rows added since the previous write. Block
+ * layout: magic, start, rows, metric count, metric names, bucket offsets from start, then per metric the min, max, avg
+ * and last columns as floats, NaN when the metric was not reported. A block cut short by a crash ends the file.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+final class TelemetrySegment {
+
+    private static final int MAGIC = 0x42545331;
+    private static final int KINDS = 4;
+    private static final int METRICS = TelemetryMetric.values().length;
+
+    private final long start;
+    private int rows;
+    private int[] offsets;
+    private final float[][] columns = new float[METRICS * KINDS][];
+
+    TelemetrySegment(final long start) {
+        this(start, 0, null);
+        clear();
+    }
+
+    private TelemetrySegment(final long start, final int rows, final int[] offsets) {
+        this.start = start;
+        this.rows = rows;
+        this.offsets = offsets;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    boolean isEmpty() {
+        return rows == 0;
+    }
+
+    private void clear() {
+        rows = 0;
+        offsets = new int[64];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new float[offsets.length];
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= offsets.length) {
+            return;
+        }
+        final int length = Math.max(capacity, offsets.length * 2);
+        offsets = Arrays.copyOf(offsets, length);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Arrays.copyOf(columns[i], length);
+        }
+    }
+
+    void add(final TelemetryBucket bucket) {
+        ensureCapacity(rows + 1);
+        offsets[rows] = (int) (bucket.getStart() - start);
+        for (int m = 0; m < METRICS; m++) {
+            columns[m * KINDS][rows] = (float) bucket.getMin(m);
+            columns[m * KINDS + 1][rows] = (float) bucket.getMax(m);
+            columns[m * KINDS + 2][rows] = (float) bucket.getAvg(m);
+            columns[m * KINDS + 3][rows] = (float) bucket.getLast(m);
+        }
+        rows++;
+    }
+
+    /**
+     * @return points of the metric in [from, to), skipping buckets where it was not reported
+     */
+    Stream<TelemetryPoint> getPoints(final TelemetryMetric metric, final long from, final long to) {
+        final int m = metric.ordinal() * KINDS;
+        return IntStream.range(0, rows)
+                .filter(i -> start + offsets[i] >= from && start + offsets[i] < to)
+                .filter(i -> !Float.isNaN(columns[m][i]))
+                .mapToObj(i -> new TelemetryPoint(Instant.ofEpochSecond(start + offsets[i]),
+                columns[m][i], columns[m + 1][i], columns[m + 2][i], columns[m + 3][i]));
+    }
+
+    /**
+     * @return a copy safe to read outside the lock guarding this segment
+     */
+    TelemetrySegment copy() {
+        final TelemetrySegment result = new TelemetrySegment(start, rows, Arrays.copyOf(offsets, rows));
+        for (int i = 0; i < columns.length; i++) {
+            result.columns[i] = Arrays.copyOf(columns[i], rows);
+        }
+        return result;
+    }
+
+    /**
+     * @return the rows held so far, this segment starts over empty so rows written to the file are not kept in memory
+     */
+    TelemetrySegment take() {
+        final TelemetrySegment result = copy();
+        clear();
+        return result;
+    }
+
+    /**
+     * Appends the rows as one block to the file, the block is built in memory first so it is written with a single call.
+     */
+    void append(final Path path) throws IOException {
+        final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(block))) {
+            out.writeInt(MAGIC);
+            out.writeLong(start);
+            out.writeInt(rows);
+            out.writeInt(METRICS);
+            for (final TelemetryMetric metric : TelemetryMetric.values()) {
+                out.writeUTF(metric.name());
+            }
+            for (int i = 0; i < rows; i++) {
+                out.writeInt(offsets[i]);
+            }
+            for (final float[] column : columns) {
+                for (int i = 0; i < rows; i++) {
+                    out.writeFloat(column[i]);
+                }
+            }
+        }
+        Files.createDirectories(path.getParent());
+        Files.write(path, block.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @return every block of the file merged into one segment
+     */
+    static TelemetrySegment read(final Path path) throws IOException {
+        //GZIPInputStream reads the concatenated members as one stream
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            final TelemetrySegment result = readBlock(path, in, Optional.empty());
+            while (hasMore(in)) {
+                try {
+                    readBlock(path, in, Optional.of(result));
+                } catch (EOFException ex) {
+                    //the last append did not complete
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static boolean hasMore(final DataInputStream in) throws IOException {
+        in.mark(1);
+        final boolean result = in.read() != -1;
+        in.reset();
+        return result;
+    }
+
+    private static TelemetrySegment readBlock(final Path path, final DataInputStream in, final Optional<TelemetrySegment> into) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("[%s] is not a telemetry segment".formatted(path));
+        }
+        final long start = in.readLong();
+        final int rows = in.readInt();
+        //metrics are matched by name, so segments survive metrics being added or removed
+        final int[] mapping = new int[in.readInt()];
+        for (int i = 0; i < mapping.length; i++) {
+            final String name = in.readUTF();
+            mapping[i] = Arrays.stream(TelemetryMetric.values())
+                    .filter(m -> m.name().equals(name))
+                    .mapToInt(TelemetryMetric::ordinal)
+                    .findFirst()
+                    .orElse(-1);
+        }
+        final TelemetrySegment result = into.orElseGet(() -> new TelemetrySegment(start));
+        final int first = result.rows;
+        result.ensureCapacity(first + rows);
+        for (int i = 0; i < rows; i++) {
+            result.offsets[first + i] = (int) (start + in.readInt() - result.start);
+        }
+        for (final float[] column : result.columns) {
+            Arrays.fill(column, first, first + rows, Float.NaN);
+        }
+        for (final int metric : mapping) {
+            for (int kind = 0; kind < KINDS; kind++) {
+                final float[] column = metric == -1 ? new float[first + rows] : result.columns[metric * KINDS + kind];
+                for (int i = 0; i < rows; i++) {
+                    column[first + i] = in.readFloat();
+                }
+            }
+        }
+        result.rows = first + rows;
+        return result;
+    }
+
+}
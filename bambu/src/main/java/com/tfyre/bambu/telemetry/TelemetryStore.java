@@ -0,0 +1,324 @@
+package com.tfyre.bambu.telemetry;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.printer.BambuPrinterState;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.Scheduler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * File based telemetry history per printer.
+ *
+ * Reports are aggregated into 1s buckets which roll up into 1m and 1h buckets. Closed buckets are appended to the open
+ * segment of their resolution in memory, a scheduled flush appends the new rows to the segment files so no file I/O
+ * happens on the thread recording the report. Segment files older than the retention of their resolution are deleted.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class TelemetryStore {
+
+    private static final String EXTENSION = ".seg";
+    private static final TelemetryResolution[] RESOLUTIONS = TelemetryResolution.values();
+
+    @Inject
+    BambuConfig config;
+    @Inject
+    Scheduler scheduler;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void postConstruct() {
+        if (!config.telemetry().enabled()) {
+            return;
+        }
+        scheduler.newJob("%s.flush".formatted(getClass().getName()))
+                .setInterval("1m")
+                .setConcurrentExecution(Scheduled.ConcurrentExecution.SKIP)
+                .setTask(e -> flush())
+                .schedule();
+        scheduler.newJob("%s.retention".formatted(getClass().getName()))
+                .setInterval("1h")
+                .setTask(e -> applyRetention())
+                .schedule();
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        series.values().forEach(s -> s.flush(true));
+    }
+
+    private Path getDir(final String printerName) {
+        return Path.of(config.telemetry().dir(), printerName.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    private Path getPath(final String printerName, final TelemetryResolution resolution, final long segmentStart) {
+        return getDir(printerName).resolve(resolution.name()).resolve("%d%s".formatted(segmentStart, EXTENSION));
+    }
+
+    /**
+     * Records the values of a printer state, called for every state change of the printer.
+     *
+     * @param printerName the printer
+     * @param state merged printer state
+     */
+    public void record(final String printerName, final BambuPrinterState state) {
+        if (!config.telemetry().enabled()) {
+            return;
+        }
+        final TelemetryBucket bucket = new TelemetryBucket(state.lastUpdated().toEpochSecond());
+        for (final TelemetryMetric metric : TelemetryMetric.values()) {
+            metric.getValue(state.print()).ifPresent(value -> bucket.add(metric, value));
+        }
+        if (bucket.isEmpty()) {
+            return;
+        }
+        series.computeIfAbsent(printerName, Series::new).add(bucket);
+    }
+
+    /**
+     * @param printerName the printer
+     * @param metric the metric
+     * @param from inclusive
+     * @param to exclusive
+     * @param resolution bucket size of the points
+     * @return closed buckets in the range that is still retained, oldest first
+     */
+    public List<TelemetryPoint> query(final String printerName, final TelemetryMetric metric, final Instant from, final Instant to, final TelemetryResolution resolution) {
+        final Optional<Series> printer = Optional.ofNullable(series.get(printerName));
+        if (printer.isEmpty()) {
+            return query(printerName, metric, from, to, resolution, List.of());
+        }
+        //the flush cannot move rows from memory to the files while they are read
+        printer.get().io.lock();
+        try {
+            return query(printerName, metric, from, to, resolution, printer.get().getUnwritten(resolution));
+        } finally {
+            printer.get().io.unlock();
+        }
+    }
+
+    private List<TelemetryPoint> query(final String printerName, final TelemetryMetric metric, final Instant from, final Instant to,
+            final TelemetryResolution resolution, final List<TelemetrySegment> unwritten) {
+        //only look for segments that can exist, from the retention up to the open bucket
+        final long now = Instant.now().getEpochSecond();
+        final long fromSecond = Math.max(from.getEpochSecond(), now - resolution.getRetention(config.telemetry()).toSeconds());
+        final long toSecond = Math.min(to.getEpochSecond(), now + resolution.getBucketSeconds());
+        final List<TelemetryPoint> result = new ArrayList<>();
+        for (long start = resolution.segmentFloor(fromSecond); start < toSecond; start += resolution.getSegmentSeconds()) {
+            final long segmentStart = start;
+            read(getPath(printerName, resolution, segmentStart)).ifPresent(s -> s.getPoints(metric, fromSecond, toSecond).forEach(result::add));
+            unwritten.stream()
+                    .filter(s -> s.getStart() == segmentStart)
+                    .forEach(s -> s.getPoints(metric, fromSecond, toSecond).forEach(result::add));
+        }
+        return result;
+    }
+
+    private Optional<TelemetrySegment> read(final Path path) {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(TelemetrySegment.read(path));
+        } catch (IOException ex) {
+            Log.errorf(ex, "Cannot read telemetry [%s]: %s", path, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void flush() {
+        final long now = Instant.now().getEpochSecond();
+        series.values().forEach(s -> {
+            s.close(now);
+            s.flush(false);
+        });
+    }
+
+    private void applyRetention() {
+        final Path dir = Path.of(config.telemetry().dir());
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        final long now = Instant.now().getEpochSecond();
+        try (Stream<Path> printers = Files.list(dir)) {
+            printers.filter(Files::isDirectory).forEach(printer -> {
+                for (final TelemetryResolution resolution : RESOLUTIONS) {
+                    final long oldest = now - resolution.getRetention(config.telemetry()).toSeconds();
+                    deleteBefore(printer.resolve(resolution.name()), resolution, oldest);
+                }
+            });
+        } catch (IOException ex) {
+            Log.errorf(ex, "Cannot apply telemetry retention: %s", ex.getMessage());
+        }
+    }
+
+    private void deleteBefore(final Path dir, final TelemetryResolution resolution, final long oldest) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+                    .filter(p -> getSegmentStart(p).map(start -> start + resolution.getSegmentSeconds() < oldest).orElse(false))
+                    .forEach(p -> {
+                        try {
+                            Log.debugf("Deleting telemetry [%s]", p);
+                            Files.delete(p);
+                        } catch (IOException ex) {
+                            Log.errorf(ex, "Cannot delete telemetry [%s]: %s", p, ex.getMessage());
+                        }
+                    });
+        } catch (IOException ex) {
+            Log.errorf(ex, "Cannot list telemetry [%s]: %s", dir, ex.getMessage());
+        }
+    }
+
+    private Optional<Long> getSegmentStart(final Path path) {
+        final String name = path.getFileName().toString();
+        try {
+            return Optional.of(Long.parseLong(name.substring(0, name.length() - EXTENSION.length())));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Open buckets of one printer and the rows not yet in its files, guarded by its own lock. The files of the printer
+     * are only touched while holding {@link #io}, which the thread recording reports never takes.
+     */
+    private final class Series {
+
+        private final String name;
+        private final TelemetryBucket[] buckets = new TelemetryBucket[RESOLUTIONS.length];
+        private final TelemetrySegment[] segments = new TelemetrySegment[RESOLUTIONS.length];
+        //rows of segments whose window closed, waiting for the next flush
+        private final List<Block> pending = new ArrayList<>();
+        private final ReentrantLock io = new ReentrantLock();
+
+        private Series(final String name) {
+            this.name = name;
+        }
+
+        private synchronized void add(final TelemetryBucket sample) {
+            add(0, sample);
+        }
+
+        private void add(final int level, final TelemetryBucket values) {
+            final long start = RESOLUTIONS[level].floor(values.getStart());
+            if (buckets[level] != null && start < buckets[level].getStart()) {
+                //late report, buckets are only appended so fold it into the open bucket
+                buckets[level].merge(values);
+                return;
+            }
+            if (buckets[level] != null && buckets[level].getStart() != start) {
+                closeBucket(level);
+            }
+            if (buckets[level] == null) {
+                buckets[level] = new TelemetryBucket(start);
+            }
+            buckets[level].merge(values);
+        }
+
+        private void closeBucket(final int level) {
+            final TelemetryBucket bucket = buckets[level];
+            buckets[level] = null;
+            getSegment(level, bucket.getStart()).add(bucket);
+            if (level + 1 < RESOLUTIONS.length) {
+                add(level + 1, bucket);
+            }
+        }
+
+        private TelemetrySegment getSegment(final int level, final long bucketStart) {
+            final long start = RESOLUTIONS[level].segmentFloor(bucketStart);
+            final TelemetrySegment current = segments[level];
+            if (current != null && current.getStart() == start) {
+                return current;
+            }
+            if (current != null && !current.isEmpty()) {
+                pending.add(new Block(RESOLUTIONS[level], current.take()));
+            }
+            //the file of a segment written before a restart is appended to, it is not read here
+            segments[level] = new TelemetrySegment(start);
+            return segments[level];
+        }
+
+        /**
+         * Closes buckets that ended without a newer report.
+         */
+        private synchronized void close(final long now) {
+            for (int level = 0; level < RESOLUTIONS.length; level++) {
+                if (buckets[level] != null && buckets[level].getStart() != RESOLUTIONS[level].floor(now)) {
+                    closeBucket(level);
+                }
+            }
+        }
+
+        /**
+         * @return rows of the resolution that are not in the files yet
+         */
+        private synchronized List<TelemetrySegment> getUnwritten(final TelemetryResolution resolution) {
+            final List<TelemetrySegment> result = new ArrayList<>();
+            pending.stream().filter(b -> b.resolution() == resolution).map(Block::rows).forEach(result::add);
+            Optional.ofNullable(segments[resolution.ordinal()]).map(TelemetrySegment::copy).ifPresent(result::add);
+            return result;
+        }
+
+        private synchronized List<Block> takeUnwritten(final boolean closing) {
+            if (closing) {
+                for (int level = 0; level < RESOLUTIONS.length; level++) {
+                    if (buckets[level] != null) {
+                        closeBucket(level);
+                    }
+                }
+            }
+            final List<Block> result = new ArrayList<>(pending);
+            pending.clear();
+            for (int level = 0; level < RESOLUTIONS.length; level++) {
+                if (segments[level] != null && !segments[level].isEmpty()) {
+                    result.add(new Block(RESOLUTIONS[level], segments[level].take()));
+                }
+            }
+            return result;
+        }
+
+        private void flush(final boolean closing) {
+            io.lock();
+            try {
+                takeUnwritten(closing).forEach(this::append);
+            } finally {
+                io.unlock();
+            }
+        }
+
+        private void append(final Block block) {
+            final Path path = getPath(name, block.resolution(), block.rows().getStart());
+            try {
+                block.rows().append(path);
+            } catch (IOException ex) {
+                Log.errorf(ex, "%s: Cannot write telemetry [%s]: %s", name, path, ex.getMessage());
+            }
+        }
+
+    }
+
+    private record Block(TelemetryResolution resolution, TelemetrySegment rows) {
+
+    }
+
+}
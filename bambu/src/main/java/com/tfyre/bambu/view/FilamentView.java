@@ -64,9 +64,9 @@ public class FilamentView extends FormLayout implements NotificationHelper, View
                 return;
             }
 
-            printer.commandFilamentSetting(amsId, trayId, filament, color.get(),
-                    view.minTemp.getValue(), view.maxTemp.getValue());
-            printer.commandFullStatus(true);
+            view.showErrorOnFailure("%s - Filament".formatted(printer.getName()),
+                    printer.commandFilamentSetting(amsId, trayId, filament, color.get(), view.minTemp.getValue(), view.maxTemp.getValue())
+                            .thenCompose(v -> printer.commandFullStatus(true)));
         });
 
     }
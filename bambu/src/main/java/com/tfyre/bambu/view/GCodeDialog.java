@@ -13,6 +13,9 @@ import com.vaadin.flow.component.textfield.TextArea;
  */
 public class GCodeDialog {
 
+    private static final NotificationHelper NH = new NotificationHelper() {
+    };
+
     public static void show(final BambuPrinter printer) {
         final Dialog d = new Dialog();
         d.setHeaderTitle("Send GCode (No Validation!!)");
@@ -24,7 +27,8 @@ public class GCodeDialog {
         cancel.addThemeVariants(ButtonVariant.LUMO_ERROR);
         final Button ok = new Button("OK", e -> {
             d.close();
-            printer.commandPrintGCodeLine(text.getValue().trim().replaceAll("\n", "\\\n"));
+            NH.showErrorOnFailure("%s - GCode".formatted(printer.getName()),
+                    printer.commandPrintGCodeLine(text.getValue().trim().replaceAll("\n", "\\\n")));
         });
         ok.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
         d.getFooter().add(cancel, ok);
@@ -7,18 +7,21 @@ import com.google.protobuf.util.JsonFormat;
 import com.tfyre.bambu.MainLayout;
 import com.tfyre.bambu.SystemRoles;
 import com.tfyre.bambu.model.BambuMessage;
+import com.tfyre.bambu.printer.BambuMessageDecoder;
 import com.tfyre.bambu.printer.BambuPrinter;
 import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.RingBuffer;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.HasComponents;
 import com.vaadin.flow.component.Unit;
 import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
-import com.vaadin.flow.component.listbox.ListBox;
 import com.vaadin.flow.component.orderedlayout.FlexLayout;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.Scroller;
@@ -33,12 +36,12 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -52,6 +55,7 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
 
     private static final ObjectMapper OM = new ObjectMapper();
     private static final JsonFormat.Printer PRINTER = JsonFormat.printer().preservingProtoFieldNames();
+    private static final BambuMessageDecoder DECODER = new BambuMessageDecoder();
     //DateTimeFormatter.ISO_DATE_TIME;
     private static final DateTimeFormatter DTF = new DateTimeFormatterBuilder()
             .parseCaseInsensitive()
@@ -71,11 +75,11 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
     BambuPrinters printers;
 
     private Optional<BambuPrinter> _printer = Optional.empty();
-    private final ListBox<BambuPrinter.Message> listBox = new ListBox<>();
+    private final Grid<BambuPrinter.LogMessage> grid = new Grid<>();
     private final TextField filter = new TextField();
     private final TextArea json = new TextArea("RAW");
     private final TextArea parsed = new TextArea("Parsed");
-    private final List<BambuPrinter.Message> messages = new ArrayList<>();
+    private Optional<RingBuffer<BambuPrinter.LogMessage>.Snapshot> messages = Optional.empty();
     private final ComboBox<BambuPrinter> comboBox = new ComboBox<>();
 
     @Override
@@ -101,32 +105,49 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
         }
     }
 
+    private String parseMessage(final String raw) {
+        try {
+            return parseMessage(DECODER.decode(raw.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException | RuntimeException ex) {
+            //one bad entry must not break the view, show what was received
+            showError(ex.getMessage());
+            return raw;
+        }
+    }
+
     private void buildFilter() {
         final String value = filter.getValue();
+        //pages are read straight from the ring buffer snapshot, only the visible rows are touched
         if (value == null || value.isBlank()) {
-            listBox.setItems(messages);
+            grid.setItems(query -> messages.stream().flatMap(m -> m.page(query.getOffset(), query.getLimit())));
             return;
         }
 
-        listBox.setItems(messages.stream().filter(m -> m.raw().contains(value)).toList());
+        grid.setItems(query -> messages.stream()
+                .flatMap(m -> m.streamReversed())
+                .filter(m -> m.raw().contains(value))
+                .skip(query.getOffset())
+                .limit(query.getLimit()));
     }
 
     private void buildList(final BambuPrinter printer) {
-        messages.clear();
-        messages.addAll(new ArrayList<>(printer.getLastMessages()).reversed());
+        messages = Optional.ofNullable(printer).map(BambuPrinter::getLastMessages);
         buildFilter();
     }
 
-    private Component buildListBox() {
-        listBox.setItemLabelGenerator(m -> "%s - %s".formatted(DTF.format(m.lastUpdated()), m.raw().length()));
-        listBox.addValueChangeListener(l -> {
+    private Component buildGrid() {
+        grid.addColumn(m -> "%s - %s".formatted(DTF.format(m.lastUpdated()), m.size())).setHeader("Messages");
+        grid.addThemeVariants(GridVariant.LUMO_COMPACT);
+        grid.asSingleSelect().addValueChangeListener(l -> {
             if (l.getValue() == null) {
                 return;
             }
-            json.setValue(parseJson(l.getValue().raw()));
-            parsed.setValue(parseMessage(l.getValue().message()));
+            final String raw = l.getValue().raw();
+            json.setValue(parseJson(raw));
+            parsed.setValue(parseMessage(raw));
         });
-        listBox.setMinWidth(300, Unit.PIXELS);
+        grid.setWidth(300, Unit.PIXELS);
+        grid.setHeightFull();
 
         json.setReadOnly(true);
         parsed.setReadOnly(true);
@@ -135,7 +156,7 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
         flex.setFlexGrow(50.0, json, parsed);
         final HorizontalLayout result = new HorizontalLayout();
         result.setSizeFull();
-        result.add(listBox);
+        result.add(grid);
         result.addAndExpand(new Scroller(flex));
         result.setMinHeight("0");
         return result;
@@ -155,7 +176,7 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
         addClassName("logs-view");
         setSizeFull();
         buildToolbar();
-        add(buildListBox());
+        add(buildGrid());
         _printer.ifPresent(comboBox::setValue);
     }
 
@@ -1,7 +1,9 @@
 package com.tfyre.bambu.view;
 
+import com.tfyre.bambu.BambuExecutors;
 import com.tfyre.bambu.MainLayout;
 import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.camel.ConfigReloader;
 import com.tfyre.bambu.printer.BambuPrinter;
 import com.tfyre.bambu.printer.BambuPrinterConsumer;
 import com.tfyre.bambu.printer.BambuPrinterException;
@@ -12,6 +14,7 @@ import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.grid.GridSortOrder;
+import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
@@ -21,6 +24,8 @@ import com.vaadin.flow.router.Route;
 import io.quarkus.logging.Log;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
@@ -28,7 +33,6 @@ import java.time.temporal.ChronoField;
 import java.util.Comparator;
 import java.util.Optional;
 import java.util.function.Function;
-import org.eclipse.microprofile.context.ManagedExecutor;
 
 /**
  *
@@ -55,9 +59,13 @@ public class MaintenanceView extends VerticalLayout implements NotificationHelpe
     BambuPrinters printers;
 
     @Inject
-    ManagedExecutor executor;
+    BambuExecutors executors;
+
+    @Inject
+    ConfigReloader configReloader;
 
     private final Grid<BambuPrinters.PrinterDetail> grid = new Grid<>();
+    private final Span resources = new Span();
 
     @Override
     public Grid<BambuPrinters.PrinterDetail> getGrid() {
@@ -77,7 +85,7 @@ public class MaintenanceView extends VerticalLayout implements NotificationHelpe
     private Button newButton(final BambuPrinters.PrinterDetail pd, final String action, final VaadinIcon icon, final BambuPrinterConsumer<String> consumer) {
         final Button result = new Button("", new Icon(icon), l -> {
             final Optional<UI> ui = getUI();
-            executor.submit(() -> {
+            executors.blocking().execute(() -> {
                 try {
                     consumer.accept(pd.name());
                 } catch (BambuPrinterException ex) {
@@ -93,8 +101,41 @@ public class MaintenanceView extends VerticalLayout implements NotificationHelpe
         return result;
     }
 
+    private void reloadConfig() {
+        final UI ui = UI.getCurrent();
+        executors.blocking().execute(() -> {
+            try {
+                configReloader.reload();
+                ui.access(() -> {
+                    showNotification("Config reloaded");
+                    refreshItems();
+                });
+            } catch (BambuPrinterException ex) {
+                Log.error(ex.getMessage(), ex);
+                ui.access(() -> {
+                    showError(ex.getMessage());
+                    refreshItems();
+                });
+            }
+        });
+    }
+
     private void refreshItems() {
         grid.setItems(printers.getPrintersDetail());
+        refreshResources();
+    }
+
+    private static long toMB(final long bytes) {
+        return bytes / 1024 / 1024;
+    }
+
+    private void refreshResources() {
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        final int count = Math.max(1, printers.getPrintersDetail().size());
+        final long cpu = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os
+                ? os.getProcessCpuTime() / 1_000_000_000L : 0;
+        resources.setText("Heap: %d / %d MB (%.1f MB per printer) CPU: %d s (%.1f s per printer)".formatted(
+                toMB(heap.getUsed()), toMB(heap.getMax()), heap.getUsed() / 1024.0 / 1024.0 / count, cpu, (double) cpu / count));
     }
 
     private <T> Comparator<BambuPrinters.PrinterDetail> getODTComparator(
@@ -116,6 +157,12 @@ public class MaintenanceView extends VerticalLayout implements NotificationHelpe
                 .setSortable(true).setComparator(getODTComparator(BambuPrinter::getStatus, BambuPrinter.Message::lastUpdated));
         setupColumn("Last Full Status", pd -> pd.printer().getFullStatus().map(m -> DTF.format(m.lastUpdated())).orElse("--"))
                 .setSortable(true).setComparator(getODTComparator(BambuPrinter::getFullStatus, BambuPrinter.Message::lastUpdated));
+        setupColumn("Startup (ms)", pd -> pd.getStartupTime().map(d -> Long.toString(d.toMillis())).orElse("--"))
+                .setSortable(true).setComparator(Comparator.comparingLong(pd -> pd.startupNanos().get()));
+        setupColumn("Memory (KB)", pd -> printers.getFootprint(pd).retainedBytes() / 1024)
+                .setSortable(true).setComparator(Comparator.comparingLong(pd -> printers.getFootprint(pd).retainedBytes()));
+        setupColumn("Decoding (ms)", pd -> printers.getFootprint(pd).cpuNanos() / 1_000_000)
+                .setSortable(true).setComparator(Comparator.comparingLong(pd -> printers.getFootprint(pd).cpuNanos()));
         setupColumn("Last Thumbnail", pd -> pd.printer().getThumbnail().map(m -> DTF.format(m.lastUpdated())).orElse("--"))
                 .setSortable(true).setComparator(getODTComparator(BambuPrinter::getThumbnail, BambuPrinter.Thumbnail::lastUpdated));
 
@@ -134,7 +181,8 @@ public class MaintenanceView extends VerticalLayout implements NotificationHelpe
 
     @Override
     public void updateHeader(final HasComponents component) {
-        component.add(new Button("Refresh", new Icon(VaadinIcon.REFRESH), l -> refreshItems()));
+        component.add(new Button("Refresh", new Icon(VaadinIcon.REFRESH), l -> refreshItems()),
+                new Button("Reload Config", new Icon(VaadinIcon.FILE_REFRESH), l -> reloadConfig()), resources);
     }
 
 }
@@ -1,11 +1,15 @@
 package com.tfyre.bambu.view;
 
 import com.vaadin.flow.component.HasText;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import io.quarkus.logging.Log;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import org.jboss.logging.Logger.Level;
 
 /**
@@ -65,6 +69,23 @@ public interface NotificationHelper {
         Log.error(ex.getMessage(), ex);
     }
 
+    /**
+     * Shows an error in the current UI when the command fails, commands are sent after the listener returned.
+     *
+     * @param description what was sent
+     * @param command the command being sent
+     */
+    default void showErrorOnFailure(final String description, final CompletionStage<?> command) {
+        final Optional<UI> ui = Optional.ofNullable(UI.getCurrent());
+        command.whenComplete((result, ex) -> {
+            if (ex == null) {
+                return;
+            }
+            final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            ui.ifPresent(u -> u.access(() -> showError("%s: %s".formatted(description, cause.getMessage()))));
+        });
+    }
+
     default void showWarning(final String warning) {
         final Notification n = getNotificationSpan(warning);
         n.setDuration(1500);
@@ -9,7 +9,6 @@ import com.tfyre.bambu.view.dashboard.DashboardPrinter;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.HasComponents;
-import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.Span;
@@ -22,6 +21,7 @@ import jakarta.annotation.security.RolesAllowed;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 import java.util.Comparator;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -53,8 +53,7 @@ public class PrinterView extends PushDiv implements HasUrlParameter<String>, Not
         content.removeAll();
         final DashboardPrinter card = cardInstance.get();
         content.add(card.build(printer, false));
-        final UI ui = getUI().get();
-        createFuture(() -> ui.access(card::update), config.refreshInterval());
+        subscribe(getUI().get(), Map.of(printer, card::update), config.refreshInterval());
     }
 
     private Component buildContent() {
@@ -1,14 +1,25 @@
 package com.tfyre.bambu.view;
 
+import com.tfyre.bambu.printer.BambuPrinter;
 import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.orderedlayout.FlexComponent;
+import com.vaadin.flow.shared.Registration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.inject.Inject;
 import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  *
@@ -18,18 +29,34 @@ public abstract class PushDiv extends Div implements FlexComponent {
 
     @Inject
     ScheduledExecutorService ses;
+    @Inject
+    MeterRegistry registry;
 
     private Optional<ScheduledFuture<?>> future = Optional.empty();
+    private final List<Registration> registrations = new ArrayList<>();
+    //printer to the receive time of the oldest report not pushed yet, empty when only changes without a report are pending
+    private final Map<BambuPrinter, Optional<OffsetDateTime>> dirty = new ConcurrentHashMap<>();
+    private final AtomicBoolean pushScheduled = new AtomicBoolean();
+    private volatile long nextPush;
+    private Timer pushTimer;
+    private Timer latencyTimer;
 
     private void cancelFuture() {
         future.ifPresent(f -> f.cancel(true));
         future = Optional.empty();
     }
 
+    private void unsubscribe() {
+        registrations.forEach(Registration::remove);
+        registrations.clear();
+        dirty.clear();
+    }
+
     @Override
     protected void onDetach(final DetachEvent detachEvent) {
         super.onDetach(detachEvent);
         cancelFuture();
+        unsubscribe();
     }
 
     public ScheduledFuture<?> createFuture(final Runnable runnable, final Duration interval) {
@@ -38,4 +65,61 @@ public abstract class PushDiv extends Div implements FlexComponent {
         return future.get();
     }
 
+    /**
+     * Runs the updates once, then only for printers that published a change, at most once per interval for this UI.
+     *
+     * @param ui the UI to push to
+     * @param updates the update to run per printer
+     * @param interval minimum time between pushes
+     */
+    public void subscribe(final UI ui, final Map<BambuPrinter, Runnable> updates, final Duration interval) {
+        unsubscribe();
+        pushTimer = registry.timer("bambu.ui.push", "view", getClass().getSimpleName());
+        latencyTimer = Timer.builder("bambu.ui.latency")
+                .description("Time from receiving a printer report to pushing it to the UI")
+                .tag("view", getClass().getSimpleName())
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        final Map<BambuPrinter, Runnable> copy = Map.copyOf(updates);
+        copy.keySet().forEach(printer -> registrations.add(printer.addChangeListener(change -> {
+            dirty.merge(change.printer(), change.reportReceived(), (pending, received) -> pending.isPresent() ? pending : received);
+            schedulePush(ui, copy, interval);
+        })));
+        ui.access(() -> copy.values().forEach(Runnable::run));
+    }
+
+    private void schedulePush(final UI ui, final Map<BambuPrinter, Runnable> updates, final Duration interval) {
+        if (!pushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        final long delay = Math.max(0, nextPush - System.nanoTime());
+        ses.schedule(() -> push(ui, updates, interval), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void push(final UI ui, final Map<BambuPrinter, Runnable> updates, final Duration interval) {
+        nextPush = System.nanoTime() + interval.toNanos();
+        pushScheduled.set(false);
+        final List<Runnable> runnables = new ArrayList<>();
+        final List<OffsetDateTime> received = new ArrayList<>();
+        dirty.entrySet().removeIf(entry -> {
+            Optional.ofNullable(updates.get(entry.getKey())).ifPresent(runnable -> {
+                runnables.add(runnable);
+                entry.getValue().ifPresent(received::add);
+            });
+            return true;
+        });
+        if (runnables.isEmpty()) {
+            return;
+        }
+        ui.access(() -> {
+            pushTimer.record(() -> runnables.forEach(Runnable::run));
+            recordLatency(received);
+        });
+    }
+
+    private void recordLatency(final List<OffsetDateTime> received) {
+        final OffsetDateTime now = OffsetDateTime.now();
+        received.forEach(time -> latencyTimer.record(Duration.between(time, now)));
+    }
+
 }
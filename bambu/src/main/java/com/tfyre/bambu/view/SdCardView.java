@@ -1,6 +1,7 @@
 package com.tfyre.bambu.view;
 
 import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.BambuExecutors;
 import com.tfyre.bambu.MainLayout;
 import com.tfyre.bambu.SystemRoles;
 import com.tfyre.bambu.YesNoCancelDialog;
@@ -8,6 +9,7 @@ import com.tfyre.bambu.printer.BambuConst;
 import com.tfyre.bambu.printer.BambuPrinter;
 import com.tfyre.bambu.printer.BambuPrinters;
 import com.tfyre.ftp.BambuFtp;
+import com.tfyre.ftp.BambuFtpPool;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.DetachEvent;
@@ -40,7 +42,6 @@ import com.vaadin.flow.server.StreamResource;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.configuration.MemorySize;
 import jakarta.annotation.security.RolesAllowed;
-import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -57,7 +58,6 @@ import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPReply;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.eclipse.microprofile.context.ManagedExecutor;
 
 /**
  *
@@ -83,9 +83,9 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
     @Inject
     BambuPrinters printers;
     @Inject
-    ManagedExecutor executor;
+    BambuExecutors executors;
     @Inject
-    Instance<BambuFtp> clientInstance;
+    BambuFtpPool ftpPool;
     @Inject
     BambuConfig config;
 
@@ -104,6 +104,7 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
     private final ProgressBar progressBar = newProgressBar();
     private final MemoryBuffer buffer = new MemoryBuffer();
     private final Upload upload = new Upload(buffer);
+    private BambuPrinters.PrinterDetail printerDetail;
     private BambuFtp client;
     private double percentageComplete;
     private long fileSize;
@@ -133,7 +134,7 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
     }
 
     private void runCallable(final Callable callable) {
-        executor.submit(() -> {
+        executors.blocking().execute(() -> {
             try {
                 callable.run();
             } catch (Exception ex) {
@@ -152,11 +153,8 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
         }
         final BambuFtp _client = client;
         client = null;
-        if (!_client.isConnected()) {
-            return;
-        }
         grid.setItems(List.of());
-        runCallable(_client::doClose);
+        runCallable(() -> ftpPool.release(_client));
     }
 
     private void setConnectDisconnect(final boolean canConnect) {
@@ -170,16 +168,18 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
 
     private void buildList(final BambuPrinters.PrinterDetail printer) {
         disconnect();
-        client = clientInstance.get().setup(printer, this::bytesTransferred);
+        printerDetail = printer;
         setConnectDisconnect(true);
     }
 
     private void doConnect() {
         connect.setEnabled(false);
         runCallable(() -> {
-            client.doConnect();
-            if (!client.doLogin()) {
-                runInUI(() -> nh.showError("Login Failed"));
+            try {
+                client = ftpPool.borrow(printerDetail, this::bytesTransferred);
+            } catch (IOException ex) {
+                runInUI(() -> connect.setEnabled(true));
+                throw ex;
             }
             runInUI(() -> setConnectDisconnect(false));
             doPath();
@@ -188,9 +188,8 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
 
     private void doDisconnect() {
         disconnect.setEnabled(false);
-        grid.setItems(List.of());
+        disconnect();
         setConnectDisconnect(true);
-        runCallable(client::doClose);
     }
 
     private void doPath() throws IOException {
@@ -199,7 +198,7 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
             runInUI(() -> path.setValue(BambuConst.PATHSEP));
             return;
         }
-        if (!client.isConnected()) {
+        if (client == null || !client.isConnected()) {
             return;
         }
         if (!client.changeWorkingDirectory(value)) {
@@ -435,14 +434,16 @@ public final class SdCardView extends PushDiv implements HasUrlParameter<String>
                 return;
             }
             if (fileName.endsWith(BambuConst.FILE_GCODE)) {
-                comboBox.getValue().printer().commandPrintGCodeFile(fileName);
+                nh.showErrorOnFailure("%s - Print".formatted(comboBox.getValue().name()),
+                        comboBox.getValue().printer().commandPrintGCodeFile(fileName));
             } else if (is3mf) {
-                comboBox.getValue().printer().commandPrintProjectFile(
-                        new BambuPrinter.CommandPPF(
-                                fileName, plateId.getValue(),
-                                useAMS.getValue(), timelapse.getValue(), bedLevelling.getValue(),
-                                flowCalibration.getValue(), vibrationCalibration.getValue(),
-                                List.of()));
+                nh.showErrorOnFailure("%s - Print".formatted(comboBox.getValue().name()),
+                        comboBox.getValue().printer().commandPrintProjectFile(
+                                new BambuPrinter.CommandPPF(
+                                        fileName, plateId.getValue(),
+                                        useAMS.getValue(), timelapse.getValue(), bedLevelling.getValue(),
+                                        flowCalibration.getValue(), vibrationCalibration.getValue(),
+                                        List.of())));
             } else {
                 nh.showError("Unknown File: %s".formatted(fileName));
             }
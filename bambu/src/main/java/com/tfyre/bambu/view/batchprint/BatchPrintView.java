@@ -48,7 +48,6 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.eclipse.microprofile.context.ManagedExecutor;
 
 /**
  *
@@ -69,8 +68,6 @@ public final class BatchPrintView extends PushDiv implements NotificationHelper,
     @Inject
     Instance<ProjectFile> projectFileInstance;
     @Inject
-    ManagedExecutor executor;
-    @Inject
     ScheduledExecutorService ses;
     @ConfigProperty(name = "quarkus.http.limits.max-body-size")
     MemorySize maxBodySize;
@@ -84,7 +81,7 @@ public final class BatchPrintView extends PushDiv implements NotificationHelper,
     private final Span printTime = new Span();
     private final Span printWeight = new Span();
     private final Div printFilaments = newDiv("filaments");
-    private final Checkbox skipSameSize = new Checkbox("Skip if same size");
+    private final Checkbox skipSameSize = new Checkbox("Skip if already uploaded");
     private final Checkbox timelapse = new Checkbox("Timelapse");
     private final Checkbox bedLevelling = new Checkbox("Bed Levelling");
     private final Checkbox flowCalibration = new Checkbox("Flow Calibration");
@@ -193,7 +190,7 @@ public final class BatchPrintView extends PushDiv implements NotificationHelper,
         Log.infof("printAll: user[%s] ip[%s] file[%s] printers[%s]", user, ip, projectFile.getFilename(),
                 selected.stream().map(pm -> pm.getPrinterDetail().name()).toList());
         final BambuPrinter.CommandPPF command = new BambuPrinter.CommandPPF("", 0, true, timelapse.getValue(), bedLevelling.getValue(), flowCalibration.getValue(), vibrationCalibration.getValue(), List.of());
-        selected.forEach(pm -> executor.submit(() -> pm.sendPrint(projectFile, command, skipSameSize.getValue())));
+        selected.forEach(pm -> pm.queuePrint(projectFile, command, skipSameSize.getValue()));
         showNotification("Queued: %d".formatted(selected.size()));
     }
 
@@ -6,20 +6,24 @@ import com.tfyre.bambu.model.Print;
 import com.tfyre.bambu.model.Tray;
 import com.tfyre.bambu.printer.BambuConst;
 import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinterException;
 import com.tfyre.bambu.printer.BambuPrinters;
 import com.tfyre.bambu.printer.Filament;
 import com.tfyre.bambu.printer.FilamentType;
 import com.tfyre.bambu.view.NotificationHelper;
 import com.tfyre.ftp.BambuFtp;
+import com.tfyre.ftp.BambuFtpPool;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.contextmenu.ContextMenu;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.server.Command;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.logging.Log;
 import jakarta.enterprise.context.Dependent;
-import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 import java.io.IOException;
 import java.util.Arrays;
@@ -27,9 +31,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
-import org.apache.commons.net.ftp.FTPFile;
 
 /**
  *
@@ -41,7 +44,13 @@ public final class PrinterMapping implements FilamentHelper, NotificationHelper
     @Inject
     BambuConfig config;
     @Inject
-    Instance<BambuFtp> clientInstance;
+    BambuFtpPool ftpPool;
+    @Inject
+    UploadScheduler uploadScheduler;
+    @Inject
+    UploadManifest uploadManifest;
+    @Inject
+    MeterRegistry registry;
 
     private final Map<Integer, Integer> amsMapping = new HashMap<>();
     private final Map<Integer, Integer> amsMappingCache = new HashMap<>();
@@ -53,21 +62,38 @@ public final class PrinterMapping implements FilamentHelper, NotificationHelper
     private final Span bulkStatus = new Span();
     private long fileSize;
     private double percentageComplete = 0;
+    private double throughput = 0;
+    private long uploadStart;
+    private long uploadResumedFrom;
+    private Optional<UploadScheduler.Job> job = Optional.empty();
     private UI ui;
+    private Timer uploadTimer;
+    private Counter uploadErrors;
+    private Counter uploadBytes;
 
     public PrinterMapping setup(final UI ui, final BambuPrinters.PrinterDetail printerDetail) {
         this.ui = ui;
         this.printerDetail = printerDetail;
+        uploadTimer = registry.timer("bambu.ftp.upload", "printer", printerDetail.name());
+        uploadErrors = registry.counter("bambu.ftp.upload.errors", "printer", printerDetail.name());
+        uploadBytes = registry.counter("bambu.ftp.upload.bytes", "printer", printerDetail.name());
         return this;
     }
 
     public void updateBulkStatus() {
-        final String newText;
+        final String text;
         if (printerState == PrinterState.FTP_UPLOADING) {
-            newText = "%s: %.2f%%".formatted(printerState.getDescription(), percentageComplete);
+            text = "%s: %.2f%% %.0fKB/s".formatted(printerState.getDescription(), percentageComplete, throughput / 1_000);
+        } else if (printerState == PrinterState.QUEUED) {
+            text = job.map(uploadScheduler::getPosition)
+                    .filter(position -> position > 0)
+                    .map(position -> "%s #%d".formatted(printerState.getDescription(), position))
+                    .orElseGet(printerState::getDescription);
         } else {
-            newText = printerState.getDescription();
+            text = printerState.getDescription();
         }
+        final int attempts = job.map(UploadScheduler.Job::getAttempts).orElse(0);
+        final String newText = attempts > 1 && printerState != PrinterState.SENT ? "%s (attempt %d)".formatted(text, attempts) : text;
         if (newText.equals(bulkStatus.getText())) {
             return;
         }
@@ -102,72 +128,92 @@ public final class PrinterMapping implements FilamentHelper, NotificationHelper
         printerDetail.printer().setBlocked(isBlocked);
     }
 
-    private void doFtp(final ProjectFile projectFile, final boolean skipIfSameSize) throws IOException {
+    private void doFtp(final ProjectFile projectFile, final boolean skipIfUploaded) throws IOException {
         Log.debugf("%s: doFtp", printerDetail.name());
-        final BambuFtp client = clientInstance.get().setup(printerDetail, this::bytesTransferred);
+        setPrinterState(PrinterState.FTP_CONNECT);
+        final BambuFtp client = ftpPool.borrow(printerDetail, this::bytesTransferred);
         try {
-            Log.debugf("%s: connecting", printerDetail.name());
-            setPrinterState(PrinterState.FTP_CONNECT);
-            client.doConnect();
-            Log.debugf("%s: loggingin", printerDetail.name());
-            setPrinterState(PrinterState.FTP_LOGIN);
-            client.doLogin();
-            if (skipIfSameSize) {
+            if (skipIfUploaded) {
                 Log.debugf("%s: checking", printerDetail.name());
                 setPrinterState(PrinterState.FTP_SIZE);
-                final Optional<FTPFile> oFile = Stream.of(client.listFiles())
-                        .filter(file -> file.isFile() && projectFile.getFilename().equals(file.getName()))
-                        .findAny();
-                if (oFile.isPresent()) {
-                    final FTPFile ftpFile = oFile.get();
-                    Log.debugf("%s: size local[%d] remote[%d]", printerDetail.name(), projectFile.getFileSize(), ftpFile.getSize());
-                    if (projectFile.getFileSize() == ftpFile.getSize()) {
-                        return;
-                    }
+                if (uploadManifest.isUploaded(printerDetail.name(), client, projectFile.getFilename(), projectFile.getHash(), projectFile.getFileSize())) {
+                    Log.debugf("%s: already uploaded", printerDetail.name());
+                    ftpPool.release(client);
+                    return;
                 }
             }
             Log.debugf("%s: uploading", printerDetail.name());
+            uploadStart = System.nanoTime();
+            uploadResumedFrom = 0;
             setPrinterState(PrinterState.FTP_UPLOADING);
-            client.doUpload(projectFile.getFilename(), projectFile.getStream());
-            Log.debugf("%s: uploaded", printerDetail.name());
-        } finally {
-            try {
-                client.doClose();
-            } catch (IOException ex) {
-                Log.error(ex.getMessage(), ex);
+            final Timer.Sample sample = Timer.start(registry);
+            if (!client.doResumableUpload(projectFile.getFilename(), projectFile.getHash().substring(0, 12),
+                    uploadScheduler.throttle(printerDetail.config().ip(), projectFile.getStream()), projectFile.getFileSize())) {
+                throw new IOException("Upload failed: %s".formatted(client.getReplyString()));
             }
+            sample.stop(uploadTimer);
+            Log.debugf("%s: uploaded", printerDetail.name());
+            uploadManifest.setUploaded(printerDetail.name(), client, projectFile.getFilename(), projectFile.getHash());
+            ftpPool.release(client);
+        } catch (IOException | RuntimeException ex) {
+            ftpPool.invalidate(client);
+            throw ex;
         }
     }
 
-    public void sendPrint(final ProjectFile projectFile, final BambuPrinter.CommandPPF command, final boolean skipIfSameSize) {
-        Log.debugf("%s: sendPrint", printerDetail.name());
+    /**
+     * Blocks the printer and queues the upload, the print is started once the upload completed.
+     */
+    public void queuePrint(final ProjectFile projectFile, final BambuPrinter.CommandPPF command, final boolean skipIfUploaded) {
+        Log.debugf("%s: queuePrint", printerDetail.name());
         doBlock(true);
         fileSize = projectFile.getFileSize();
         percentageComplete = 0;
+        throughput = 0;
+        job = Optional.empty();
+        setPrinterState(PrinterState.QUEUED);
+        job = Optional.of(uploadScheduler.submit(printerDetail.name(), printerDetail.config().ip(), plate.prediction(),
+                attempt -> sendPrint(projectFile, command, skipIfUploaded), this::onFailure));
+    }
+
+    private void sendPrint(final ProjectFile projectFile, final BambuPrinter.CommandPPF command, final boolean skipIfUploaded) throws IOException, BambuPrinterException {
+        Log.debugf("%s: sendPrint", printerDetail.name());
+        percentageComplete = 0;
         try {
-            doFtp(projectFile, skipIfSameSize);
-            final List<Integer> mapping = generateAmsMapping();
-            final boolean useAms = mapping.stream().noneMatch(i -> i == BambuConst.AMS_TRAY_VIRTUAL);
-            final BambuPrinter.CommandPPF _command = new BambuPrinter.CommandPPF(
-                    projectFile.getFilename(),
-                    plate.plateId(),
-                    useAms,
-                    command.timelapse(),
-                    command.bedLevelling(),
-                    command.flowCalibration(),
-                    command.vibrationCalibration(),
-                    mapping
-            );
-            printerDetail.printer().commandPrintProjectFile(_command);
-            setPrinterState(PrinterState.SENT);
-        } catch (Throwable ex) {
-            final String error = "%s: %s".formatted(printerDetail.name(), ex.getMessage());
-            Log.error(error, ex);
-            setPrinterState(PrinterState.ERROR);
-            runInUI(() -> showError(error));
-        } finally {
-            doBlock(false);
+            doFtp(projectFile, skipIfUploaded);
+        } catch (IOException ex) {
+            uploadErrors.increment();
+            setPrinterState(PrinterState.QUEUED);
+            throw ex;
         }
+        final List<Integer> mapping = generateAmsMapping();
+        final boolean useAms = mapping.stream().noneMatch(i -> i == BambuConst.AMS_TRAY_VIRTUAL);
+        final BambuPrinter.CommandPPF _command = new BambuPrinter.CommandPPF(
+                projectFile.getFilename(),
+                plate.plateId(),
+                useAms,
+                command.timelapse(),
+                command.bedLevelling(),
+                command.flowCalibration(),
+                command.vibrationCalibration(),
+                mapping
+        );
+        try {
+            //the upload thread waits for the broker, a failed command is reported like a failed upload
+            printerDetail.printer().commandPrintProjectFile(_command).toCompletableFuture().join();
+        } catch (CompletionException ex) {
+            throw new BambuPrinterException("Cannot start print: %s".formatted(ex.getCause().getMessage()), ex.getCause());
+        }
+        setPrinterState(PrinterState.SENT);
+        doBlock(false);
+    }
+
+    private void onFailure(final Exception ex) {
+        final String error = "%s: %s".formatted(printerDetail.name(), ex.getMessage());
+        Log.error(error, ex);
+        setPrinterState(PrinterState.ERROR);
+        runInUI(() -> showError(error));
+        doBlock(false);
     }
 
     public boolean canPrint() {
@@ -229,11 +275,7 @@ public final class PrinterMapping implements FilamentHelper, NotificationHelper
     }
 
     private List<PrinterFilament> getPrinterFilaments(final BambuPrinter printer) {
-        final Optional<BambuPrinter.Message> message = printer.getFullStatus();
-        if (message.isEmpty() || !message.get().message().hasPrint()) {
-            return List.of();
-        }
-        final Print print = message.get().message().getPrint();
+        final Print print = printer.getState().print();
         if (print.hasAms() && !print.getAms().getAmsList().isEmpty()) {
             return print.getAms().getAmsList().stream()
                     .flatMap(single -> single.getTrayList().stream()
@@ -331,6 +373,16 @@ public final class PrinterMapping implements FilamentHelper, NotificationHelper
 
     private void bytesTransferred(long totalBytesTransferred, int bytesTransferred, long streamSize) {
         percentageComplete = 100.0 * totalBytesTransferred / fileSize;
+        uploadBytes.increment(bytesTransferred);
+        if (bytesTransferred == 0) {
+            //a resumed upload reports the bytes already on the printer first
+            uploadResumedFrom = totalBytesTransferred;
+            return;
+        }
+        final long elapsed = System.nanoTime() - uploadStart;
+        if (elapsed > 0) {
+            throughput = (totalBytesTransferred - uploadResumedFrom) * 1_000_000_000.0 / elapsed;
+        }
     }
 
     private record PrinterFilament(String name, int amsId, int trayId, FilamentType type, long color) {
@@ -343,6 +395,7 @@ public final class PrinterMapping implements FilamentHelper, NotificationHelper
 
     public enum PrinterState {
         READY("Ready"),
+        QUEUED("Queued"),
         NEEDS_MAPPING("Needs Filament Mapping"),
         FTP_CONNECT("FTP Connect"),
         FTP_LOGIN("FTP Login"),
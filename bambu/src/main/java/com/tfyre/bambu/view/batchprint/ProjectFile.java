@@ -1,32 +1,38 @@
 package com.tfyre.bambu.view.batchprint;
 
 import com.tfyre.bambu.printer.FilamentType;
-import com.tfyre.schema.Config;
 import com.tfyre.schema.Metadata;
 import com.vaadin.flow.server.AbstractStreamResource;
 import com.vaadin.flow.server.StreamResource;
 import io.quarkus.logging.Log;
-import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.Dependent;
-import jakarta.xml.bind.JAXBContext;
+import jakarta.inject.Inject;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import javax.xml.transform.stream.StreamSource;
-import org.jboss.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  *
@@ -37,32 +43,53 @@ public class ProjectFile implements FilamentHelper {
 
     private static final String PLATE_PNG = "Metadata/plate_%d.png";
     private static final String SLICE_INFO = "Metadata/slice_info.config";
+    private static final String ELEMENT_PLATE = "plate";
+    private static final XMLInputFactory XML_INPUT_FACTORY = newXMLInputFactory();
+
+    @Inject
+    ProjectFileCache cache;
 
     private final Map<Integer, StreamResource> thumbnails = new HashMap<>();
-    private final JAXBContext context;
-    private final Unmarshaller unmarshaller;
-    private ZipFile zipFile;
-    private List<Plate> plates;
+    private ProjectFileCache.Entry entry;
     private String filename;
     private File file;
-
-    public ProjectFile() {
-        try {
-            context = JAXBContext.newInstance(com.tfyre.schema.ObjectFactory.class);
-            unmarshaller = context.createUnmarshaller();
-        } catch (JAXBException ex) {
-            throw new RuntimeException("Cannot create JAXB: %s".formatted(ex.getMessage()), ex);
-        }
+    private String hash;
+    private MappedByteBuffer data;
+
+    private static XMLInputFactory newXMLInputFactory() {
+        final XMLInputFactory result = XMLInputFactory.newFactory();
+        result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return result;
     }
 
-    private Config getSliceInfo() throws ProjectException {
+    /**
+     * Streams through slice_info and only unmarshals the plate elements.
+     */
+    private List<Plate> readPlates(final ZipFile zipFile) throws ProjectException {
         final ZipEntry sliceEntry = Optional.ofNullable(zipFile.getEntry(SLICE_INFO))
                 .orElseThrow(() -> new ProjectException("[%s] not found".formatted(SLICE_INFO)));
-        try {
-            return unmarshaller.unmarshal(new StreamSource(zipFile.getInputStream(sliceEntry)), Config.class).getValue();
-        } catch (JAXBException | IOException ex) {
+        final List<Plate> result = new ArrayList<>();
+        try (InputStream is = zipFile.getInputStream(sliceEntry)) {
+            final Unmarshaller unmarshaller = cache.getContext().createUnmarshaller();
+            final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.isStartElement() && ELEMENT_PLATE.equals(reader.getLocalName())) {
+                        //unmarshal leaves the reader after the end element
+                        result.add(mapPlate(unmarshaller.unmarshal(reader, com.tfyre.schema.Plate.class).getValue()));
+                    } else {
+                        reader.next();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (JAXBException | XMLStreamException | IOException ex) {
             throw new ProjectException("Cannot unmarshal [%s]: %s".formatted(SLICE_INFO, ex.getMessage()), ex);
         }
+        result.sort(Comparator.comparing(Plate::plateId));
+        return List.copyOf(result);
     }
 
     private PlateFilament mapFilament(final com.tfyre.schema.Filament filament) {
@@ -82,7 +109,7 @@ public class ProjectFile implements FilamentHelper {
     }
 
     public List<Plate> getPlates() {
-        return plates;
+        return entry.plates();
     }
 
     public String getFilename() {
@@ -93,33 +120,70 @@ public class ProjectFile implements FilamentHelper {
         return file.length();
     }
 
+    /**
+     * @return SHA-256 of the file contents as lower case hex, calculated once
+     * @throws IOException when the file cannot be read
+     */
+    public synchronized String getHash() throws IOException {
+        if (hash != null) {
+            return hash;
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException("Cannot create SHA-256: %s".formatted(ex.getMessage()), ex);
+        }
+        digest.update(getData().duplicate());
+        hash = HexFormat.of().formatHex(digest.digest());
+        return hash;
+    }
+
     public ProjectFile setup(final String filename, final File file) throws ProjectException {
         this.filename = filename;
         this.file = file;
+        final String _hash;
         try {
-            zipFile = new ZipFile(file);
+            _hash = getHash();
+        } catch (IOException ex) {
+            throw new ProjectException("Error reading [%s]: %s".formatted(filename, ex.getMessage()), ex);
+        }
+        final Optional<ProjectFileCache.Entry> cached = cache.get(_hash);
+        if (cached.isPresent()) {
+            Log.debugf("setup: cached [%s] hash[%s]", filename, _hash);
+            entry = cached.get();
+            return this;
+        }
+        try (ZipFile zipFile = new ZipFile(file)) {
+            entry = new ProjectFileCache.Entry(readPlates(zipFile));
         } catch (IOException ex) {
             throw new ProjectException("Error opening [%s]: %s".formatted(filename, ex.getMessage()), ex);
         }
-        plates = getSliceInfo().getPlate().stream()
-                .map(this::mapPlate)
-                .sorted(Comparator.comparing(Plate::plateId))
-                .toList();
+        cache.put(_hash, entry);
         return this;
     }
 
-    private StreamResource getThumbnail(final int plateId) {
+    /**
+     * The png is only read from the 3MF when the browser asks for it, so the cache holds no image data.
+     */
+    private byte[] readThumbnail(final int plateId) {
         final String platePng = PLATE_PNG.formatted(plateId);
-        final ZipEntry pngEntry = zipFile.getEntry(platePng);
-        return new StreamResource("image.jpg", () -> {
-            try {
-                return zipFile.getInputStream(pngEntry);
-            } catch (IOException ex) {
-                final String message = "Cannot read [%s]: %s".formatted(platePng, ex.getMessage());
-                Log.error(message, ex);
-                throw new RuntimeException(message);
+        try (ZipFile zipFile = new ZipFile(file)) {
+            final ZipEntry pngEntry = zipFile.getEntry(platePng);
+            if (pngEntry == null) {
+                return new byte[0];
+            }
+            try (InputStream is = zipFile.getInputStream(pngEntry)) {
+                return is.readAllBytes();
             }
-        });
+        } catch (IOException ex) {
+            Log.errorf("%s: Cannot read [%s]: %s", filename, platePng, ex.getMessage());
+            return new byte[0];
+        }
+    }
+
+    private StreamResource getThumbnail(final int plateId) {
+        return new StreamResource("image.png", () -> new ByteArrayInputStream(readThumbnail(plateId)));
     }
 
     public AbstractStreamResource getThumbnail(final Plate plate) {
@@ -127,17 +191,65 @@ public class ProjectFile implements FilamentHelper {
 
     }
 
-    @PreDestroy
-    public void preDestroy() {
-        try {
-            zipFile.close();
-        } catch (IOException ex) {
-            Log.errorf(ex, "Error closing 3mf: %s", ex.getMessage());
+    /**
+     * The file is read once into a read only memory map shared by every upload of this project.
+     */
+    private synchronized MappedByteBuffer getData() throws IOException {
+        if (data != null) {
+            return data;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
         }
+        return data;
     }
 
-    public InputStream getStream() throws FileNotFoundException {
-        return new FileInputStream(file);
+    /**
+     * @return a new stream with its own position over the shared file contents
+     * @throws IOException when the file cannot be mapped
+     */
+    public InputStream getStream() throws IOException {
+        return new BufferInputStream(getData().duplicate());
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int result = Math.min(len, buffer.remaining());
+            buffer.get(b, off, result);
+            return result;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int result = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + result);
+            return result;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
     }
 
 }
@@ -0,0 +1,68 @@
+package com.tfyre.bambu.view.batchprint;
+
+import com.tfyre.bambu.BambuConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Parsed projects shared by every session, keyed by the SHA-256 of the 3MF and evicted least recently used first.
+ *
+ * Only the plates are kept, the plate thumbnails are read from the 3MF when shown, so an entry stays small.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class ProjectFileCache {
+
+    @Inject
+    BambuConfig config;
+
+    private JAXBContext context;
+    private Map<String, Entry> cache;
+
+    @PostConstruct
+    public void postConstruct() {
+        try {
+            context = JAXBContext.newInstance(com.tfyre.schema.ObjectFactory.class);
+        } catch (JAXBException ex) {
+            throw new RuntimeException("Cannot create JAXB: %s".formatted(ex.getMessage()), ex);
+        }
+        final int maxItems = config.batchPrint().projectCache();
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxItems;
+            }
+        };
+    }
+
+    /**
+     * @return the shared context, unmarshallers created from it are not thread safe
+     */
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    public synchronized Optional<Entry> get(final String hash) {
+        return Optional.ofNullable(cache.get(hash));
+    }
+
+    public synchronized void put(final String hash, final Entry entry) {
+        cache.put(hash, entry);
+    }
+
+    /**
+     * @param plates plates sorted by id
+     */
+    public record Entry(List<Plate> plates) {
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.tfyre.bambu.view.batchprint;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.ftp.BambuFtp;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the SHA-256 of every project file uploaded to a printer, stored as one json file per printer.
+ *
+ * A file is only considered uploaded when the hash matches, the remote SIZE matches the local file and the remote SIZE and
+ * MDTM of that single file still match what was recorded after the upload.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class UploadManifest {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final TypeReference<Map<String, Entry>> TYPE = new TypeReference<>() {
+    };
+
+    @Inject
+    BambuConfig config;
+
+    private final Map<String, Map<String, Entry>> manifests = new ConcurrentHashMap<>();
+
+    private Path getPath(final String printerName) {
+        return Path.of(config.batchPrint().manifestDir(), "%s.json".formatted(printerName.replaceAll("[^A-Za-z0-9._-]", "_")));
+    }
+
+    private Map<String, Entry> getManifest(final String printerName) {
+        return manifests.computeIfAbsent(printerName, name -> {
+            final Path path = getPath(name);
+            if (!Files.exists(path)) {
+                return new HashMap<>();
+            }
+            try {
+                return new HashMap<>(OM.readValue(path.toFile(), TYPE));
+            } catch (IOException ex) {
+                Log.errorf(ex, "%s: Cannot read manifest [%s]: %s", name, path, ex.getMessage());
+                return new HashMap<>();
+            }
+        });
+    }
+
+    private void save(final String printerName, final Map<String, Entry> manifest) {
+        final Path path = getPath(printerName);
+        try {
+            Files.createDirectories(path.getParent());
+            final Path tmp = path.resolveSibling("%s.tmp".formatted(path.getFileName()));
+            OM.writeValue(tmp.toFile(), manifest);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Log.errorf(ex, "%s: Cannot write manifest [%s]: %s", printerName, path, ex.getMessage());
+        }
+    }
+
+    private Entry getRemote(final BambuFtp client, final String filename, final String sha256) throws IOException {
+        return new Entry(sha256, client.getRemoteSize(filename), client.getModificationTime(filename));
+    }
+
+    /**
+     * @param length size of the local file
+     * @return true when this exact file was uploaded before and is unchanged on the printer
+     */
+    public boolean isUploaded(final String printerName, final BambuFtp client, final String filename, final String sha256, final long length) throws IOException {
+        final Optional<Entry> entry;
+        synchronized (this) {
+            entry = Optional.ofNullable(getManifest(printerName).get(filename));
+        }
+        if (entry.isEmpty() || !entry.get().sha256().equals(sha256)) {
+            return false;
+        }
+        final Entry remote = getRemote(client, filename, sha256);
+        Log.debugf("%s: manifest[%s] remote[%s] length[%d]", printerName, entry.get(), remote, length);
+        //a missing file or a printer without SIZE or MDTM support cannot prove the upload
+        if (remote.size() < 0 || remote.modified() == null || remote.size() != length) {
+            return false;
+        }
+        return remote.size() == entry.get().size() && remote.modified().equals(entry.get().modified());
+    }
+
+    /**
+     * Records a completed upload.
+     */
+    public void setUploaded(final String printerName, final BambuFtp client, final String filename, final String sha256) throws IOException {
+        final Entry remote = getRemote(client, filename, sha256);
+        synchronized (this) {
+            final Map<String, Entry> manifest = getManifest(printerName);
+            manifest.put(filename, remote);
+            save(printerName, manifest);
+        }
+    }
+
+    public record Entry(String sha256, long size, String modified) {
+
+    }
+
+}
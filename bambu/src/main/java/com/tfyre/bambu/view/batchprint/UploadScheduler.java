@@ -0,0 +1,233 @@
+package com.tfyre.bambu.view.batchprint;
+
+import com.tfyre.bambu.BambuConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs batch print uploads with a limited number of concurrent uploads.
+ *
+ * Queued uploads start with the longest print first, so the printers that finish last start first. Uploads to printers in
+ * the same /24 subnet share a bandwidth budget and failed uploads are retried with an exponential backoff. Uploads run on
+ * virtual threads.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class UploadScheduler {
+
+    private static final int CHUNK = 16 * 1024;
+
+    @Inject
+    BambuConfig config;
+    @Inject
+    ScheduledExecutorService ses;
+    @Inject
+    MeterRegistry registry;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void postConstruct() {
+        final int threads = Math.max(1, config.batchPrint().upload().maxConcurrent());
+        //uploads block on FTP, virtual threads keep them off the platform threads
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, Thread.ofVirtual().name("upload-", 1).factory());
+        Gauge.builder("bambu.executor.queue", queue, PriorityBlockingQueue::size)
+                .description("Tasks waiting to run")
+                .tag("pool", "upload")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param name printer name, used for logging
+     * @param host printer address, uploads in the same subnet share the bandwidth budget
+     * @param printTime longer prints are uploaded first
+     * @param attempt the upload, retried when it throws {@link IOException}
+     * @param onFailure called when the upload failed and will not be retried
+     * @return the queued upload
+     */
+    public Job submit(final String name, final String host, final Duration printTime, final Attempt attempt, final Consumer<Exception> onFailure) {
+        final Job result = new Job(name, getSubnet(host), printTime, sequence.incrementAndGet(), attempt, onFailure);
+        executor.execute(result);
+        return result;
+    }
+
+    /**
+     * @param job a submitted upload
+     * @return position in the queue starting at 1, or 0 when it is not waiting
+     */
+    public int getPosition(final Job job) {
+        if (!queue.contains(job)) {
+            return 0;
+        }
+        return 1 + (int) queue.stream().filter(r -> r instanceof Job j && j.compareTo(job) < 0).count();
+    }
+
+    /**
+     * @param host printer address
+     * @param inputStream data to upload
+     * @return the input stream limited to the subnet's bandwidth budget
+     */
+    public InputStream throttle(final String host, final InputStream inputStream) {
+        final long rate = config.batchPrint().upload().bandwidth().asLongValue();
+        if (rate <= 0) {
+            return inputStream;
+        }
+        final Budget budget = budgets.computeIfAbsent(getSubnet(host), k -> new Budget(rate));
+        return new FilterInputStream(inputStream) {
+            @Override
+            public int read() throws IOException {
+                final int result = super.read();
+                if (result != -1) {
+                    budget.acquire(1);
+                }
+                return result;
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                final int result = super.read(b, off, Math.min(len, CHUNK));
+                if (result > 0) {
+                    budget.acquire(result);
+                }
+                return result;
+            }
+        };
+    }
+
+    private String getSubnet(final String host) {
+        final int pos = host.lastIndexOf('.');
+        if (pos == -1 || !host.chars().allMatch(c -> c == '.' || Character.isDigit(c))) {
+            return host;
+        }
+        return host.substring(0, pos);
+    }
+
+    private void retry(final Job job, final Exception ex) {
+        final BambuConfig.BatchPrint.Upload upload = config.batchPrint().upload();
+        if (job.attempts >= upload.retries()) {
+            job.onFailure.accept(ex);
+            return;
+        }
+        final long delay = upload.backoff().toMillis() << Math.min(job.attempts - 1, 10);
+        Log.errorf("%s: upload attempt %d failed, retrying in %dms: %s", job.name, job.attempts, delay, ex.getMessage());
+        ses.schedule(() -> executor.execute(job), delay, TimeUnit.MILLISECONDS);
+    }
+
+    @FunctionalInterface
+    public interface Attempt {
+
+        /**
+         * @param attempt starting at 1
+         * @throws Exception when the upload failed
+         */
+        void run(final int attempt) throws Exception;
+
+    }
+
+    public final class Job implements Runnable, Comparable<Job> {
+
+        private final String name;
+        private final String subnet;
+        private final Duration printTime;
+        private final long sequence;
+        private final Attempt attempt;
+        private final Consumer<Exception> onFailure;
+        private int attempts;
+
+        private Job(final String name, final String subnet, final Duration printTime, final long sequence, final Attempt attempt, final Consumer<Exception> onFailure) {
+            this.name = name;
+            this.subnet = subnet;
+            this.printTime = printTime;
+            this.sequence = sequence;
+            this.attempt = attempt;
+            this.onFailure = onFailure;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        @Override
+        public void run() {
+            attempts++;
+            Log.debugf("%s: upload attempt %d subnet[%s]", name, attempts, subnet);
+            try {
+                attempt.run(attempts);
+            } catch (IOException ex) {
+                retry(this, ex);
+            } catch (Exception ex) {
+                onFailure.accept(ex);
+            }
+        }
+
+        @Override
+        public int compareTo(final Job o) {
+            final int result = o.printTime.compareTo(printTime);
+            return result != 0 ? result : Long.compare(sequence, o.sequence);
+        }
+
+    }
+
+    /**
+     * Token bucket refilled at the configured bytes per second, holding at most one second of tokens.
+     */
+    private static final class Budget {
+
+        private final long rate;
+        private double tokens;
+        private long last = System.nanoTime();
+
+        private Budget(final long rate) {
+            this.rate = rate;
+            this.tokens = rate;
+        }
+
+        private void acquire(final int bytes) throws IOException {
+            final long wait;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                tokens = Math.min(rate, tokens + (now - last) * rate / 1_000_000_000.0);
+                last = now;
+                tokens -= bytes;
+                wait = tokens >= 0 ? 0 : (long) (-tokens * 1_000_000_000.0 / rate);
+            }
+            if (wait == 0) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Upload interrupted", ex);
+            }
+        }
+
+    }
+
+}
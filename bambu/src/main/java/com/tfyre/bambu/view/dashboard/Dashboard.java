@@ -6,14 +6,13 @@ import com.tfyre.bambu.MainLayout;
 import com.tfyre.bambu.SystemRoles;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.Component;
-import com.vaadin.flow.component.UI;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import jakarta.inject.Inject;
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
-import java.util.function.Consumer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
 import com.tfyre.bambu.printer.BambuPrinters;
 import com.tfyre.bambu.view.PushDiv;
 import jakarta.annotation.security.RolesAllowed;
@@ -38,20 +37,19 @@ public class Dashboard extends PushDiv {
     @Override
     protected void onAttach(final AttachEvent attachEvent) {
         super.onAttach(attachEvent);
-        final List<Runnable> runnables = new ArrayList<>();
+        final Map<BambuPrinter, Runnable> updates = new HashMap<>();
         addClassName("dashboard-view");
 
         printers.getPrinters()
                 .stream().sorted(Comparator.comparing(BambuPrinter::getName))
-                .map(printer -> handlePrinter(printer, runnables::add))
+                .map(printer -> handlePrinter(printer, updates::put))
                 .forEach(this::add);
-        final UI ui = attachEvent.getUI();
-        createFuture(() -> ui.access(() -> runnables.forEach(Runnable::run)), config.refreshInterval());
+        subscribe(attachEvent.getUI(), updates, config.refreshInterval());
     }
 
-    private Component handlePrinter(final BambuPrinter printer, final Consumer<Runnable> consumer) {
+    private Component handlePrinter(final BambuPrinter printer, final BiConsumer<BambuPrinter, Runnable> consumer) {
         final DashboardPrinter card = cardInstance.get();
-        consumer.accept(card::update);
+        consumer.accept(printer, card::update);
         return card.build(printer, true);
     }
 
@@ -1,11 +1,14 @@
 package com.tfyre.bambu.view.dashboard;
 
 import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.CameraServlet;
 import com.tfyre.bambu.SystemRoles;
 import com.tfyre.bambu.YesNoCancelDialog;
 import com.tfyre.bambu.model.AmsSingle;
 import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinters;
 import com.tfyre.bambu.model.Print;
+import com.tfyre.bambu.printer.BambuPrinterState;
 import com.tfyre.bambu.model.Tray;
 import com.tfyre.bambu.printer.BambuConst;
 import com.tfyre.bambu.printer.BambuConst.Speed;
@@ -37,6 +40,7 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.component.textfield.IntegerField;
 import com.vaadin.flow.dom.Style;
+import com.vaadin.flow.shared.Registration;
 import com.vaadin.flow.theme.lumo.LumoUtility;
 import jakarta.enterprise.context.Dependent;
 import jakarta.inject.Inject;
@@ -49,15 +53,24 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.function.Supplier;
 import com.tfyre.bambu.view.NotificationHelper;
 import com.tfyre.bambu.view.ViewHelper;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.dialog.Dialog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.logging.Log;
 import java.util.ArrayList;
 
@@ -103,13 +116,19 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
     private final Span printerStatus = newSpan();
     private final Div printerName = new Div();
     private String printerInfo = "";
-    private String thumbnailId;
+    private long thumbnailId;
+    private long nextThumbnail;
     private boolean built;
-    private boolean processFull = true;
+    private long stateVersion = 0;
     private final boolean isAdmin;
     private int lastError = 0;
     private double temperatureNozzle = 0;
     private double temperatureBed = 0;
+    //last value sent to the client per component and aspect, stale components fall away with the weak keys
+    private final Map<Component, Map<String, Object>> rendered = new WeakHashMap<>();
+    private int changes;
+    private int lastChanges;
+    private long totalChanges;
 
     private final Map<String, AmsHeader> amsHeaders = new HashMap<>();
     private final Map<String, AmsFilament> amsFilaments = new HashMap<>();
@@ -118,9 +137,19 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
     private Component thumbnailOrIframe;
     private BambuPrinter printer;
     private boolean fromDashboard;
+    private Optional<Registration> cameraViewer = Optional.empty();
+    private Optional<Timer> updateTimer = Optional.empty();
+    //a frame that arrived before the camera interval elapsed is shown by this refresh
+    private Optional<ScheduledFuture<?>> thumbnailRefresh = Optional.empty();
 
     @Inject
     BambuConfig config;
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    MeterRegistry registry;
+    @Inject
+    ScheduledExecutorService ses;
 
     public DashboardPrinter() {
         progressBar = newProgressBar();
@@ -131,8 +160,51 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
         return new Span("---");
     }
 
+    private boolean isChanged(final Component component, final String aspect, final Object value) {
+        final Map<String, Object> values = rendered.computeIfAbsent(component, c -> new HashMap<>());
+        if (values.containsKey(aspect) && Objects.equals(values.get(aspect), value)) {
+            return false;
+        }
+        values.put(aspect, value);
+        changes++;
+        return true;
+    }
+
+    private void setText(final Span span, final String value) {
+        if (isChanged(span, "text", value)) {
+            span.setText(value);
+        }
+    }
+
+    private void setSrc(final Image image, final String src) {
+        if (isChanged(image, "src", src)) {
+            image.setSrc(src);
+        }
+    }
+
+    private void setBackgroundColor(final Span span, final String color) {
+        if (isChanged(span, "background", color)) {
+            span.getStyle().setBackgroundColor(color);
+        }
+    }
+
+    private void setClassName(final Div div, final String className, final boolean set) {
+        if (isChanged(div, className, set)) {
+            div.setClassName(className, set);
+        }
+    }
+
+    private void setProgress(final boolean indeterminate, final double value) {
+        if (isChanged(progressBar, "indeterminate", indeterminate)) {
+            progressBar.setIndeterminate(indeterminate);
+        }
+        if (isChanged(progressBar, "value", value)) {
+            progressBar.setValue(value);
+        }
+    }
+
     private void setTemperature(final Span span, final double value) {
-        span.setText("%.2fºC".formatted(value));
+        setText(span, "%.2fºC".formatted(value));
     }
 
     private Images getHumidityImage(final String id) {
@@ -162,22 +234,19 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
             final int amsId = getAmsId(single);
             Optional.ofNullable(amsHeaders.get(getAmsHeaderId(amsId))).ifPresent(header -> {
                 setTemperature(header.temperature(), parseDouble(printer.getName(), single.getTemp(), 0));
-                header.humidity().setSrc(getHumidityImage(single.getHumidity()).getImage());
+                setSrc(header.humidity(), getHumidityImage(single.getHumidity()).getImage());
             });
 
             single.getTrayList().forEach(tray -> {
                 final int trayId = getTrayId(tray);
                 Optional.ofNullable(amsFilaments.get(getFilamentTrayKey(amsId, trayId))).ifPresent(filament -> {
                     if (!tray.hasTrayInfoIdx()) {
-                        filament.type().setText("Empty");
+                        setText(filament.type(), "Empty");
                         return;
                     }
-                    filament.type().setText(Filament.getFilamentDescription(tray.getTrayInfoIdx(), config.dashboard().filamentFullName()));
-                    filament.color().getStyle().setBackgroundColor("#%s".formatted(tray.getTrayColor()));
-                    filament.div().removeClassName("active");
-                    if (amsTrayId == filament.amsTrayId()) {
-                        filament.div().addClassName("active");
-                    }
+                    setText(filament.type(), Filament.getFilamentDescription(tray.getTrayInfoIdx(), config.dashboard().filamentFullName()));
+                    setBackgroundColor(filament.color(), "#%s".formatted(tray.getTrayColor()));
+                    setClassName(filament.div(), "active", amsTrayId == filament.amsTrayId());
                 });
             });
         });
@@ -189,95 +258,92 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
             setTemperature(header.temperature(), parseDouble(printer.getName(), tray.getTrayTemp(), 0));
         });
         Optional.ofNullable(amsFilaments.get(getTrayKey(trayId))).ifPresent(filament -> {
-            filament.type().setText(Filament.getFilamentDescription(tray.getTrayInfoIdx(), config.dashboard().filamentFullName()));
-            filament.color().getStyle().setBackgroundColor("#%s".formatted(tray.getTrayColor()));
+            setText(filament.type(), Filament.getFilamentDescription(tray.getTrayInfoIdx(), config.dashboard().filamentFullName()));
+            setBackgroundColor(filament.color(), "#%s".formatted(tray.getTrayColor()));
         });
     }
 
-    private void processPrint(final BambuPrinter.Message message, final Print print) {
+    private void processPrint(final Print print, final IntPredicate changed) {
         if (gcodeState.isIdle()) {
-            progressBar.setIndeterminate(false);
-            progressBar.setValue(0);
-            progressFile.setText(thumbnailId);
-            progressFile.setText("");
-            progressTime.setText("--");
-            progressLayer.setText("");
+            setProgress(false, 0);
+            setText(progressFile, "");
+            setText(progressTime, "--");
+            setText(progressLayer, "");
         } else {
             //Percetage
-            if (print.hasMcPercent()) {
-                progressBar.setIndeterminate(false);
-                progressBar.setValue(Math.min(print.getMcPercent(), 100));
+            if (changed.test(Print.MC_PERCENT_FIELD_NUMBER)) {
+                setProgress(false, Math.min(print.getMcPercent(), 100));
             }
 
             //FileName
-            if (print.hasSubtaskName()) {
-                progressFile.setText(print.getSubtaskName());
+            if (changed.test(Print.SUBTASK_NAME_FIELD_NUMBER)) {
+                setText(progressFile, print.getSubtaskName());
             }
 
             //Time
-            if (print.hasMcRemainingTime()) {
-                progressTime.setText("%s remaining".formatted(formatTime(Duration.ofMinutes(print.getMcRemainingTime()))));
+            if (changed.test(Print.MC_REMAINING_TIME_FIELD_NUMBER)) {
+                setText(progressTime, "%s remaining".formatted(formatTime(Duration.ofMinutes(print.getMcRemainingTime()))));
             }
 
             //Layers
-            if (print.hasLayerNum()) {
-                progressLayer.setText("Layer %d / %d".formatted(print.getLayerNum(), printer.getTotalLayerNum()));
+            if (changed.test(Print.LAYER_NUM_FIELD_NUMBER) || changed.test(Print.TOTAL_LAYER_NUM_FIELD_NUMBER)) {
+                setText(progressLayer, "Layer %d / %d".formatted(print.getLayerNum(), printer.getTotalLayerNum()));
             }
         }
 
         //Bed & Target Temperature
-        if (print.hasBedTemper()) {
+        if (changed.test(Print.BED_TEMPER_FIELD_NUMBER)) {
             setTemperature(bed, print.getBedTemper());
-            bedImage.setSrc(print.getBedTemper() > 0.0 ? Images.MONITOR_BED_TEMP_ACTIVE.getImage() : Images.MONITOR_BED_TEMP.getImage());
+            setSrc(bedImage, print.getBedTemper() > 0.0 ? Images.MONITOR_BED_TEMP_ACTIVE.getImage() : Images.MONITOR_BED_TEMP.getImage());
         }
-        if (print.hasBedTargetTemper()) {
+        if (changed.test(Print.BED_TARGET_TEMPER_FIELD_NUMBER)) {
             temperatureBed = print.getBedTargetTemper();
             setTemperature(bedTarget, temperatureBed);
         }
 
         //Nozzle & Target Temperature
-        if (print.hasNozzleTemper()) {
+        if (changed.test(Print.NOZZLE_TEMPER_FIELD_NUMBER)) {
             setTemperature(nozzle, print.getNozzleTemper());
-            nozzleImage.setSrc(print.getNozzleTemper() > 0.0 ? Images.MONITOR_NOZZLE_TEMP_ACTIVE.getImage() : Images.MONITOR_NOZZLE_TEMP.getImage());
+            setSrc(nozzleImage, print.getNozzleTemper() > 0.0 ? Images.MONITOR_NOZZLE_TEMP_ACTIVE.getImage() : Images.MONITOR_NOZZLE_TEMP.getImage());
         }
-        if (print.hasNozzleTargetTemper()) {
+        if (changed.test(Print.NOZZLE_TARGET_TEMPER_FIELD_NUMBER)) {
             temperatureNozzle = print.getNozzleTargetTemper();
             setTemperature(nozzleTarget, temperatureNozzle);
         }
 
         //Frame/Chamber Temperature
-        if (print.hasChamberTemper()) {
+        if (changed.test(Print.CHAMBER_TEMPER_FIELD_NUMBER)) {
             setTemperature(frame, print.getChamberTemper());
         }
 
         //Speed
-        if (print.hasSpdLvl()) {
-            speed.setText(Speed.fromSpeed(print.getSpdLvl()).getDescription());
+        if (changed.test(Print.SPD_LVL_FIELD_NUMBER)) {
+            setText(speed, Speed.fromSpeed(print.getSpdLvl()).getDescription());
         }
 
         if (print.hasAms() && print.getAms().getAmsCount() > 0) {
-            processAms(print.getAms());
+            if (changed.test(Print.AMS_FIELD_NUMBER)) {
+                processAms(print.getAms());
+            }
         } else if (print.hasVtTray()) {
-            processVtTray(print.getVtTray());
+            if (changed.test(Print.VT_TRAY_FIELD_NUMBER)) {
+                processVtTray(print.getVtTray());
+            }
         }
 
+        if (!changed.test(Print.LIGHTS_REPORT_FIELD_NUMBER)) {
+            return;
+        }
         print.getLightsReportList().stream()
                 .filter(lr -> BambuConst.CHAMBER_LIGHT.equals(lr.getNode()))
                 .findFirst()
                 .ifPresent(lr -> {
-                    monitorLampText.setText(lr.getMode());
-                    monitorLamp.setSrc(BambuConst.LightMode.ON.getValue().equals(lr.getMode()) ? Images.MONITOR_LAMP_ON.getImage() : Images.MONITOR_LAMP_OFF.getImage());
+                    setText(monitorLampText, lr.getMode());
+                    setSrc(monitorLamp, BambuConst.LightMode.ON.getValue().equals(lr.getMode()) ? Images.MONITOR_LAMP_ON.getImage() : Images.MONITOR_LAMP_OFF.getImage());
                 });
     }
 
-    private <T> void process(final boolean hasValue, final BambuPrinter.Message message, final T data, final BiConsumer<BambuPrinter.Message, T> consumer) {
-        if (!hasValue) {
-            return;
-        }
-        consumer.accept(message, data);
-    }
-
-    private void processError(final BambuPrinter.Message message) {
+    private void processError(final BambuPrinterState state) {
         lastError = printer.getPrintError();
         final String errorString;
         final boolean hasError;
@@ -291,22 +357,18 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
                     BambuErrors.getPrinterError(lastError).orElseGet(() -> "No Translation"));
         }
 
-        printerInfo = "Last Updated: %s%s".formatted(DTF.format(message.lastUpdated()), errorString);
-        if (hasError) {
-            printerName.addClassName(LumoUtility.Background.ERROR_50);
-        } else {
-            printerName.removeClassName(LumoUtility.Background.ERROR_50);
-        }
+        printerInfo = "Last Updated: %s%s".formatted(DTF.format(state.lastUpdated()), errorString);
+        setClassName(printerName, LumoUtility.Background.ERROR_50, hasError);
     }
 
-    private void processMessage(final BambuPrinter.Message message) {
-        process(message.message().hasPrint(), message, message.message().getPrint(), this::processPrint);
-        processError(message);
+    private void processState(final BambuPrinterState state, final long sinceVersion) {
+        processPrint(state.print(), fieldNumber -> state.isChanged(fieldNumber, sinceVersion));
+        stateVersion = state.version();
     }
 
     private void updatePrinterStatus() {
         final String value = "Status: %s".formatted(gcodeState.getDescription());
-        if (value.equals(printerStatus.getText())) {
+        if (!isChanged(printerStatus, "text", value)) {
             return;
         }
         printerStatus.setText(value);
@@ -323,34 +385,75 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
     }
 
     public void update() {
+        updateTimer.ifPresentOrElse(t -> t.record(this::doUpdate), this::doUpdate);
+    }
+
+    private void doUpdate() {
         if (!built) {
             return;
         }
-        gcodeState = printer.getGCodeState();
-        if (processFull) {
-            printer.getFullStatus().ifPresent(message -> {
-                processFull = false;
-                processMessage(message);
-            });
+        changes = 0;
+        final BambuConst.GCodeState newGCodeState = printer.getGCodeState();
+        //gcodeState drives the idle / active tray rendering, when it changes render everything received
+        final boolean gcodeChanged = newGCodeState != gcodeState;
+        gcodeState = newGCodeState;
+        final BambuPrinterState state = printer.getState();
+        if (gcodeChanged) {
+            processState(state, 0);
+        } else if (state.isChanged(stateVersion)) {
+            processState(state, stateVersion);
+        }
+        if (state.version() > 0) {
+            processError(state);
         }
-        printer.getStatus().ifPresent(this::processMessage);
         printer.getThumbnail().ifPresent(data -> {
-            if (data.thumbnail().getId().equals(thumbnailId)) {
+            if (data.id() == thumbnailId) {
+                return;
+            }
+            final long remaining = nextThumbnail - System.nanoTime();
+            if (remaining > 0) {
+                scheduleThumbnailRefresh(remaining);
                 return;
             }
-            thumbnailId = data.thumbnail().getId();
-            thumbnail.setSrc(data.thumbnail());
-            thumbnailUpdated.setText(DTF.format(data.lastUpdated()));
+            thumbnailId = data.id();
+            nextThumbnail = System.nanoTime() + config.dashboard().cameraInterval().toNanos();
+            thumbnail.setSrc(CameraServlet.getUrl(printer.getName(), thumbnailId));
+            changes++;
+            setText(thumbnailUpdated, DTF.format(data.lastUpdated()));
         });
         updatePrinterStatus();
+        lastChanges = changes;
+        totalChanges += changes;
+        Log.tracef("%s: Changes emitted: %d total: %d", printer.getName(), lastChanges, totalChanges);
+    }
+
+    private void scheduleThumbnailRefresh(final long delay) {
+        if (thumbnailRefresh.isPresent()) {
+            return;
+        }
+        thumbnail.getUI().ifPresent(ui -> {
+            thumbnailRefresh = Optional.of(ses.schedule(() -> ui.access(() -> {
+                thumbnailRefresh = Optional.empty();
+                update();
+            }), delay, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private void cancelThumbnailRefresh() {
+        thumbnailRefresh.ifPresent(f -> f.cancel(false));
+        thumbnailRefresh = Optional.empty();
+    }
+
+    private void send(final String description, final CompletionStage<Void> command) {
+        showErrorOnFailure("%s - %s".formatted(printer.getName(), description), command);
     }
 
-    private void doConfirm(final String description, final Runnable runnable) {
+    private void doConfirm(final String description, final Supplier<CompletionStage<Void>> command) {
         YesNoCancelDialog.show("%s - %s\n\nAre you sure?".formatted(printer.getName(), description), ync -> {
             if (!ync.isConfirmed()) {
                 return;
             }
-            runnable.run();
+            send(description, command.get());
         });
     }
 
@@ -386,7 +489,7 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
         final Dialog d = new Dialog();
         d.setHeaderTitle("%s: Status".formatted(printer.getName()));
         final Div div = new Div(printerInfo);
-        d.add(div);
+        d.add(div, new Div("Changes emitted: %d last refresh, %d total".formatted(lastChanges, totalChanges)));
         if (lastError != 0) {
             div.getStyle()
                     .setPadding("10px")
@@ -406,8 +509,8 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
             result.add(
                     newButton("Show Logs", VaadinIcon.CLIPBOARD_TEXT, l -> UI.getCurrent().navigate(LogsView.class, printer.getName())),
                     newButton("Show SD Card", VaadinIcon.ARCHIVE, l -> UI.getCurrent().navigate(SdCardView.class, printer.getName())),
-                    newButton("Request full status", VaadinIcon.REFRESH, l -> printer.commandFullStatus(true)),
-                    newButton("Clear Print Error", VaadinIcon.WARNING, l -> printer.commandClearPrinterError()),
+                    newButton("Request full status", VaadinIcon.REFRESH, l -> send("Request full status", printer.commandFullStatus(true))),
+                    newButton("Clear Print Error", VaadinIcon.WARNING, l -> send("Clear Print Error", printer.commandClearPrinterError())),
                     newButton("Resume Print", VaadinIcon.PLAY, l -> doConfirm(BambuConst.CommandControl.RESUME)),
                     newButton("Pause Print", VaadinIcon.PAUSE, l -> doConfirm(BambuConst.CommandControl.PAUSE)),
                     newButton("Stop Print", VaadinIcon.STOP, l -> doConfirm(BambuConst.CommandControl.STOP))
@@ -429,13 +532,13 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
 
     private Component buildControls() {
         final BiConsumer<BambuConst.Move, Integer> movexy = (m, value) ->
-                printer.commandPrintGCodeLine(BambuConst.gcodeMoveXYZ(m, value, config.moveXy()));
+                send("Move", printer.commandPrintGCodeLine(BambuConst.gcodeMoveXYZ(m, value, config.moveXy())));
         final BiConsumer<BambuConst.Move, Integer> movez = (m, value) ->
-                printer.commandPrintGCodeLine(BambuConst.gcodeMoveXYZ(m, value, config.moveZ()));
+                send("Move", printer.commandPrintGCodeLine(BambuConst.gcodeMoveXYZ(m, value, config.moveZ())));
         final Consumer<Boolean> movee = (up) ->
-                printer.commandPrintGCodeLine(BambuConst.gcodeMoveExtruder(up));
+                send("Extruder", printer.commandPrintGCodeLine(BambuConst.gcodeMoveExtruder(up)));
         final Consumer<Boolean> home = b ->
-                printer.commandPrintGCodeLine(b ? BambuConst.gcodeHomeXY() : BambuConst.gcodeHomeZ());
+                send("Home", printer.commandPrintGCodeLine(b ? BambuConst.gcodeHomeXY() : BambuConst.gcodeHomeZ()));
 
         final Div xyControl = newDiv("controlxy",
                 newDiv("updown",
@@ -474,7 +577,7 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
                 newSpan("spacer")
         );
 
-        final Button homeAll = newButton("All Home", VaadinIcon.HOME, l -> printer.commandPrintGCodeLine(BambuConst.gcodeHomeAll()));
+        final Button homeAll = newButton("All Home", VaadinIcon.HOME, l -> send("All Home", printer.commandPrintGCodeLine(BambuConst.gcodeHomeAll())));
 
         final Consumer<Boolean> setEnabled = enabled -> {
             xyControl.setEnabled(enabled);
@@ -520,7 +623,7 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
         final ContextMenu menu = newContextMenu(result);
         Arrays.asList(BambuConst.LightMode.values())
                 .forEach(lm -> {
-                    menu.addItem("Set %s".formatted(lm.getValue()), l -> printer.commandLight(lm));
+                    menu.addItem("Set %s".formatted(lm.getValue()), l -> send("Set %s".formatted(lm.getValue()), printer.commandLight(lm)));
                 });
         return result;
     }
@@ -558,7 +661,7 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
                 showError("Invalid Temperature");
                 return;
             }
-            printer.commandPrintGCodeLine(function.apply(temp.getValue()));
+            send("Target Temperature", printer.commandPrintGCodeLine(function.apply(temp.getValue())));
         });
     }
 
@@ -643,8 +746,8 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
         }
         final ContextMenu menu = newContextMenu(result);
         menu.addItem("Configure", l -> doFilamentConfigure(filament));
-        menu.addItem("Load", l -> doConfirm(() -> printer.commandFilamentLoad(filament.trayId())));
-        menu.addItem("Unload", l -> doConfirm(printer::commandFilamentUnload));
+        menu.addItem("Load", l -> doConfirm(() -> send("Load", printer.commandFilamentLoad(filament.trayId()))));
+        menu.addItem("Unload", l -> doConfirm(() -> send("Unload", printer.commandFilamentUnload())));
 
         return result;
     }
@@ -719,18 +822,17 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
 
     private Div buildAms() {
         final Div result = newDiv("filaments");
-        printer.getFullStatus().ifPresent(m -> {
-            if (!m.message().hasPrint() || !m.message().getPrint().hasAms()) {
-                return;
-            }
-            if (m.message().getPrint().getAms().getAmsCount() > 0) {
-                buildAms(result, m.message().getPrint().getAms());
-                return;
-            }
-            if (m.message().getPrint().hasVtTray()) {
-                buildVtTray(result, m.message().getPrint().getVtTray());
-            }
-        });
+        final Print print = printer.getState().print();
+        if (!print.hasAms()) {
+            return result;
+        }
+        if (print.getAms().getAmsCount() > 0) {
+            buildAms(result, print.getAms());
+            return result;
+        }
+        if (print.hasVtTray()) {
+            buildVtTray(result, print.getVtTray());
+        }
         return result;
     }
 
@@ -746,6 +848,9 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
     public Component build(final BambuPrinter printer, final boolean fromDashboard) {
         this.printer = printer;
         this.fromDashboard = fromDashboard;
+        //same view tag as the ui push timer
+        updateTimer = Optional.of(registry.timer("bambu.dashboard.update", "view",
+                (fromDashboard ? Dashboard.class : PrinterView.class).getSimpleName()));
         thumbnailOrIframe = getThumbnailOrIframe();
         try {
             progressBar.setIndeterminate(true);
@@ -758,6 +863,9 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
                 // Dont buildImage
             } else {
                 list.add(buildImage());
+                if (thumbnailOrIframe == thumbnail) {
+                    watchCamera();
+                }
             }
             list.add(buildStatus());
             list.add(buildAms());
@@ -769,6 +877,21 @@ public final class DashboardPrinter implements NotificationHelper, ViewHelper {
         }
     }
 
+    /**
+     * The camera only streams while a card showing it is attached.
+     */
+    private void watchCamera() {
+        thumbnail.addAttachListener(l -> {
+            cameraViewer.ifPresent(Registration::remove);
+            cameraViewer = Optional.of(printers.addCameraViewer(printer, !fromDashboard));
+        });
+        thumbnail.addDetachListener(l -> {
+            cameraViewer.ifPresent(Registration::remove);
+            cameraViewer = Optional.empty();
+            cancelThumbnailRefresh();
+        });
+    }
+
     private Component createContent(final List<Component> list) {
         final VerticalLayout content = new VerticalLayout();
         content.addClassName("dashboard-printer");
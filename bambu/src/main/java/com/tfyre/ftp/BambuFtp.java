@@ -11,6 +11,7 @@ import javax.net.ssl.SSLContext;
 import org.apache.commons.net.ProtocolCommandEvent;
 import org.apache.commons.net.ProtocolCommandListener;
 import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.io.CopyStreamListener;
 import org.bouncycastle.jsse.BCExtendedSSLSession;
 import org.bouncycastle.jsse.BCSSLSocket;
 
@@ -108,6 +109,100 @@ public class BambuFtp extends org.apache.commons.net.ftp.FTPSClient {
         return storeFile(fileName, inputStream);
     }
 
+    /**
+     * @param fileName the remote file
+     * @return the SIZE of the file, -1 when it does not exist or SIZE is not supported
+     * @throws IOException when the command fails
+     */
+    public long getRemoteSize(final String fileName) throws IOException {
+        final String size = getSize(fileName);
+        if (size == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(size.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private void skipFully(final InputStream inputStream, final long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            final long skipped = inputStream.skip(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Cannot skip to %d, stream ended at %d".formatted(bytes, bytes - remaining));
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Uploads to a temporary file and renames it over the final file once complete, an earlier partial upload of the same
+     * content is resumed with APPE from its remote size. The copy stream listener reports totals including the resumed
+     * bytes.
+     *
+     * @param fileName the final file name
+     * @param resumeId identifies the content, a partial upload is only resumed when this matches
+     * @param inputStream the complete file, skipped forward when resuming
+     * @param length size of the complete file
+     * @return true when the file was uploaded and renamed
+     * @throws IOException on transfer failures, the partial upload is kept for the next attempt
+     */
+    public boolean doResumableUpload(final String fileName, final String resumeId, final InputStream inputStream, final long length) throws IOException {
+        final String tempName = "%s.%s.part".formatted(fileName, resumeId);
+        setFileType(FTP.BINARY_FILE_TYPE);
+        long offset = getRemoteSize(tempName);
+        if (offset > length) {
+            Log.infof("%s: discarding partial upload [%s] size[%d] expected[%d]", config.ip(), tempName, offset, length);
+            deleteFile(tempName);
+            offset = -1;
+        }
+
+        final boolean uploaded;
+        if (offset == length) {
+            uploaded = true;
+        } else if (offset > 0) {
+            Log.infof("%s: resuming [%s] from %d", config.ip(), tempName, offset);
+            skipFully(inputStream, offset);
+            final CopyStreamListener listener = getCopyStreamListener();
+            final long resumedFrom = offset;
+            if (listener != null) {
+                listener.bytesTransferred(resumedFrom, 0, length);
+                setCopyStreamListener((FTPEventListener) (total, bytes, size) -> listener.bytesTransferred(resumedFrom + total, bytes, length));
+            }
+            try {
+                uploaded = appendFile(tempName, inputStream);
+            } finally {
+                setCopyStreamListener(listener);
+            }
+        } else {
+            uploaded = storeFile(tempName, inputStream);
+        }
+        if (!uploaded) {
+            return false;
+        }
+        return replace(tempName, fileName);
+    }
+
+    /**
+     * Renames over the target first, servers that refuse to overwrite get the target deleted and the rename retried. FTP
+     * has no atomic replace, in the fallback there is a short window where the target does not exist.
+     */
+    private boolean replace(final String tempName, final String fileName) throws IOException {
+        if (rename(tempName, fileName)) {
+            return true;
+        }
+        final String reply = getReplyString();
+        //only retry when the rename failed because the target exists
+        if (getRemoteSize(fileName) < 0) {
+            Log.errorf("%s: cannot rename [%s] to [%s]: %s", config.ip(), tempName, fileName, reply.trim());
+            return false;
+        }
+        deleteFile(fileName);
+        return rename(tempName, fileName);
+    }
+
     public void doClose() throws IOException {
         quit();
         disconnect();
@@ -0,0 +1,182 @@
+package com.tfyre.ftp;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.printer.BambuConst;
+import com.tfyre.bambu.printer.BambuPrinters;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Logged in FTPS sessions per printer, so repeated listings and uploads skip the connect, TLS handshake and login.
+ *
+ * Idle sessions are checked before being handed out and closed after {@link BambuConfig.FtpPool#idleTimeout()}. With
+ * BouncyCastle the shared SSLContext also resumes the TLS session when a new connection is needed.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class BambuFtpPool {
+
+    private static final FTPEventListener NOOP = (totalBytesTransferred, bytesTransferred, streamSize) -> {
+    };
+
+    @Inject
+    Instance<BambuFtp> clientInstance;
+    @Inject
+    BambuConfig config;
+    @Inject
+    Scheduler scheduler;
+
+    private final Map<String, Deque<Idle>> idle = new HashMap<>();
+    private final Map<BambuFtp, String> borrowed = new IdentityHashMap<>();
+
+    @PostConstruct
+    public void postConstruct() {
+        scheduler.newJob("%s.evict".formatted(getClass().getName()))
+                .setInterval("30s")
+                .setTask(e -> evict())
+                .schedule();
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        final List<BambuFtp> clients;
+        synchronized (this) {
+            clients = idle.values().stream().flatMap(Deque::stream).map(Idle::client).toList();
+            idle.clear();
+        }
+        clients.forEach(c -> close("preDestroy", c));
+    }
+
+    private void close(final String name, final BambuFtp client) {
+        try {
+            if (client.isConnected()) {
+                client.doClose();
+            }
+        } catch (IOException ex) {
+            Log.debugf("%s: close failed: %s", name, ex.getMessage());
+        }
+    }
+
+    private boolean isHealthy(final BambuFtp client) {
+        try {
+            //resets the working directory left by the previous user and proves the session is alive
+            return client.isConnected() && client.changeWorkingDirectory(BambuConst.PATHSEP);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private synchronized Optional<BambuFtp> pollIdle(final String name) {
+        return Optional.ofNullable(idle.get(name))
+                .map(Deque::pollLast)
+                .map(Idle::client);
+    }
+
+    private synchronized void markBorrowed(final String name, final BambuFtp client) {
+        borrowed.put(client, name);
+    }
+
+    /**
+     * @param printer the printer to connect to
+     * @param listener receives the transfer progress while borrowed
+     * @return a connected and logged in client, return it with {@link #release} or {@link #invalidate}
+     * @throws IOException when connecting or logging in fails
+     */
+    public BambuFtp borrow(final BambuPrinters.PrinterDetail printer, final FTPEventListener listener) throws IOException {
+        Optional<BambuFtp> client;
+        while ((client = pollIdle(printer.name())).isPresent()) {
+            if (isHealthy(client.get())) {
+                Log.debugf("%s: reusing ftp session", printer.name());
+                client.get().setCopyStreamListener(listener);
+                markBorrowed(printer.name(), client.get());
+                return client.get();
+            }
+            close(printer.name(), client.get());
+        }
+
+        final BambuFtp result = clientInstance.get().setup(printer, listener);
+        try {
+            result.doConnect();
+            if (!result.doLogin()) {
+                throw new IOException("%s: Login failed: %s".formatted(printer.name(), result.getReplyString()));
+            }
+        } catch (IOException ex) {
+            close(printer.name(), result);
+            throw ex;
+        }
+        markBorrowed(printer.name(), result);
+        return result;
+    }
+
+    /**
+     * Returns a healthy client to the pool, any pending transfer must be completed.
+     *
+     * @param client the client to return
+     */
+    public void release(final BambuFtp client) {
+        final String name;
+        final Optional<BambuFtp> excess;
+        synchronized (this) {
+            name = borrowed.remove(client);
+            if (name == null || !client.isConnected()) {
+                excess = Optional.of(client);
+            } else {
+                client.setCopyStreamListener(NOOP);
+                final Deque<Idle> deque = idle.computeIfAbsent(name, k -> new ArrayDeque<>());
+                deque.addLast(new Idle(client, System.nanoTime()));
+                excess = deque.size() > config.ftpPool().maxIdle() ? Optional.of(deque.removeFirst().client()) : Optional.empty();
+            }
+        }
+        excess.ifPresent(c -> close(name, c));
+    }
+
+    /**
+     * Closes a client that failed while borrowed.
+     *
+     * @param client the client to close
+     */
+    public void invalidate(final BambuFtp client) {
+        final String name;
+        synchronized (this) {
+            name = borrowed.remove(client);
+        }
+        close(name, client);
+    }
+
+    private void evict() {
+        final long timeout = config.ftpPool().idleTimeout().toNanos();
+        final long now = System.nanoTime();
+        final Map<String, List<BambuFtp>> expired = new HashMap<>();
+        synchronized (this) {
+            idle.forEach((name, deque) -> {
+                while (!deque.isEmpty() && now - deque.peekFirst().since() > timeout) {
+                    expired.computeIfAbsent(name, k -> new ArrayList<>()).add(deque.removeFirst().client());
+                }
+            });
+        }
+        expired.forEach((name, clients) -> {
+            Log.debugf("%s: evicting %d idle ftp sessions", name, clients.size());
+            clients.forEach(c -> close(name, c));
+        });
+    }
+
+    private record Idle(BambuFtp client, long since) {
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.tfyre.bambu.benchmark;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.util.JsonFormat;
+import com.tfyre.bambu.model.BambuMessage;
+import com.tfyre.bambu.printer.BambuMessageDecoder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link BambuMessageDecoder} with the {@link JsonFormat} parser it replaced on the sample reports of the server
+ * module.
+ *
+ * The setup fails when the two decode a sample to different messages, so every run also checks that the decoders are
+ * equivalent. Use {@code -prof gc} for the allocation rate.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoderBenchmark {
+
+    private static final JsonFormat.Parser PARSER = JsonFormat.parser().ignoringUnknownFields();
+    private static final BambuMessageDecoder DECODER = new BambuMessageDecoder();
+
+    @Param({"status", "fullstatus"})
+    String report;
+
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        data = readReport(report);
+        final BambuMessage expected = jsonFormat(data);
+        final BambuMessage actual = DECODER.decode(data);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Decoders differ for %s%nJsonFormat: %s%nDecoder: %s".formatted(report, expected, actual));
+        }
+    }
+
+    private static byte[] readReport(final String name) throws IOException {
+        try (InputStream is = DecoderBenchmark.class.getResourceAsStream("/json/%s.json".formatted(name))) {
+            if (is == null) {
+                throw new IOException("Cannot find json/%s.json".formatted(name));
+            }
+            return is.readAllBytes();
+        }
+    }
+
+    private static BambuMessage jsonFormat(final byte[] data) throws InvalidProtocolBufferException {
+        final BambuMessage.Builder builder = BambuMessage.newBuilder();
+        PARSER.merge(new String(data, StandardCharsets.UTF_8), builder);
+        return builder.build();
+    }
+
+    @Benchmark
+    public BambuMessage baseline() throws InvalidProtocolBufferException {
+        return jsonFormat(data);
+    }
+
+    @Benchmark
+    public BambuMessage decoder() throws IOException {
+        return DECODER.decode(data);
+    }
+
+}
@@ -0,0 +1,132 @@
+#!/usr/bin/env bash
+#
+# Runs the server simulator and the web app against one broker for every farm size, opens headless dashboard sessions
+# and reports report to UI latency, CPU and heap per printer from /q/metrics.
+#
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+SIZES=${SIZES:-"50 100 200 400"}
+SESSIONS=${SESSIONS:-5}
+BROKER=${BROKER:-tcp://localhost:1883}
+WARMUP=${WARMUP:-60}
+DURATION=${DURATION:-120}
+WEB_PORT=${WEB_PORT:-8080}
+BROWSER=${BROWSER:-chromium}
+JAVA_OPTS=${JAVA_OPTS:-}
+WEB_OPTS=${WEB_OPTS:-$JAVA_OPTS}
+KEY_STORE=${KEY_STORE:-}
+WEB_JAR=${WEB_JAR:-$(ls "$ROOT"/bambu/target/bambu-web-*-runner.jar 2>/dev/null | head -1)}
+SERVER_JAR=${SERVER_JAR:-$ROOT/server/target/quarkus-app/quarkus-run.jar}
+WORK=${WORK:-$(mktemp -d -t bambu-benchmark.XXXXXX)}
+CLK_TCK=$(getconf CLK_TCK)
+PIDS=()
+
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+    wait 2>/dev/null || true
+    PIDS=()
+}
+trap cleanup EXIT
+
+#cpu seconds used by a process
+cpu() {
+    awk -v tck="$CLK_TCK" '{print ($14 + $15) / tck}' "/proc/$1/stat"
+}
+
+metrics() {
+    curl -sf "http://localhost:$WEB_PORT/q/metrics"
+}
+
+#sum of all samples of a metric, optionally filtered on a label
+metric() {
+    awk -v name="$1" -v filter="${2:-}" '$1 ~ "^"name"([{]|$)" && index($1, filter) {sum += $NF} END {print sum + 0}'
+}
+
+writeServer() {
+    cat > "$1/.env" <<CONF
+bambu.simulator.enabled=true
+bambu.simulator.count=$2
+bambu.simulator.url=$BROKER
+CONF
+    if [ -n "$KEY_STORE" ]; then
+        echo "bambu.simulator.key-store=$KEY_STORE" >> "$1/.env"
+    fi
+}
+
+writeWeb() {
+    cat > "$1/.env" <<CONF
+quarkus.http.port=$WEB_PORT
+bambu.auto-login=true
+CONF
+    for i in $(seq 1 "$2"); do
+        local id
+        id=$(printf "SIM%05d" "$i")
+        cat >> "$1/.env" <<CONF
+bambu.printers.$id.device-id=$id
+bambu.printers.$id.access-code=$id
+bambu.printers.$id.ip=localhost
+bambu.printers.$id.mqtt.url=$BROKER
+CONF
+        if [ -z "$KEY_STORE" ]; then
+            echo "bambu.printers.$id.stream.enabled=false" >> "$1/.env"
+        fi
+    done
+}
+
+run() {
+    local size=$1 dir="$WORK/$1"
+    mkdir -p "$dir/server" "$dir/web"
+    writeServer "$dir/server" "$size"
+    writeWeb "$dir/web" "$size"
+
+    (cd "$dir/web" && exec java $WEB_OPTS -jar "$WEB_JAR" > web.log 2>&1) &
+    local web=$!
+    PIDS+=("$web")
+    until metrics > /dev/null; do
+        kill -0 "$web" || { echo "web app failed, see $dir/web/web.log" >&2; exit 1; }
+        sleep 1
+    done
+    (cd "$dir/server" && exec java $JAVA_OPTS -jar "$SERVER_JAR" > server.log 2>&1) &
+    PIDS+=("$!")
+
+    for s in $(seq 1 "$SESSIONS"); do
+        "$BROWSER" --headless=new --no-sandbox --disable-gpu --user-data-dir="$dir/browser-$s" \
+            --remote-debugging-port=$((9222 + s)) "http://localhost:$WEB_PORT/" > /dev/null 2>&1 &
+        PIDS+=("$!")
+    done
+
+    sleep "$WARMUP"
+    local before cpu0 messages0
+    before=$(metrics)
+    cpu0=$(cpu "$web")
+    messages0=$(metric bambu_printer_messages_total <<< "$before")
+    sleep "$DURATION"
+    local after cpu1 messages1
+    after=$(metrics)
+    cpu1=$(cpu "$web")
+    messages1=$(metric bambu_printer_messages_total <<< "$after")
+
+    local p50 p99 heap
+    #only the dashboard is open, so the latency quantiles are the dashboard ones
+    p50=$(metric bambu_ui_latency_seconds 'quantile="0.5"' <<< "$after")
+    p99=$(metric bambu_ui_latency_seconds 'quantile="0.99"' <<< "$after")
+    heap=$(metric jvm_memory_used_bytes 'area="heap"' <<< "$after")
+    awk -v size="$size" -v sessions="$SESSIONS" -v duration="$DURATION" -v p50="$p50" -v p99="$p99" -v heap="$heap" \
+        -v cpu0="$cpu0" -v cpu1="$cpu1" -v messages0="$messages0" -v messages1="$messages1" \
+        'BEGIN {printf "%d,%d,%.0f,%.1f,%.1f,%.3f,%.1f,%.2f\n", size, sessions, (messages1 - messages0) / duration,
+            p50 * 1000, p99 * 1000, (cpu1 - cpu0) * 100 / duration / size, heap / 1048576, heap / 1048576 / size}'
+    cleanup
+}
+
+if [ -z "$WEB_JAR" ] || [ ! -f "$SERVER_JAR" ]; then
+    echo "Build first: ./mvnw clean install -Pproduction" >&2
+    exit 1
+fi
+echo "Results in $WORK" >&2
+echo "printers,sessions,messages_per_s,p50_ms,p99_ms,cpu_percent_per_printer,heap_mb,heap_mb_per_printer"
+for size in $SIZES; do
+    run "$size"
+done
@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# Starts the web app repeatedly against the server simulator and reports the time from process start until the first
+# printer report is received, for the runner jar and the native executable.
+#
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+RUNS=${RUNS:-5}
+COUNT=${COUNT:-10}
+BROKER=${BROKER:-tcp://localhost:1883}
+TIMEOUT=${TIMEOUT:-120}
+JAVA_OPTS=${JAVA_OPTS:-}
+WEB_JAR=${WEB_JAR:-$(ls "$ROOT"/bambu/target/bambu-web-*-runner.jar 2>/dev/null | head -1)}
+WEB_NATIVE=${WEB_NATIVE:-$(ls "$ROOT"/bambu/target/bambu-web-*-runner 2>/dev/null | head -1)}
+SERVER_JAR=${SERVER_JAR:-$ROOT/server/target/quarkus-app/quarkus-run.jar}
+WORK=${WORK:-$(mktemp -d -t bambu-startup.XXXXXX)}
+PIDS=()
+
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+    wait 2>/dev/null || true
+}
+trap cleanup EXIT
+
+mkdir -p "$WORK/server" "$WORK/web"
+cat > "$WORK/server/.env" <<CONF
+bambu.simulator.enabled=true
+bambu.simulator.count=$COUNT
+bambu.simulator.url=$BROKER
+CONF
+cat > "$WORK/web/.env" <<CONF
+bambu.auto-login=true
+bambu.telemetry.enabled=false
+CONF
+for i in $(seq 1 "$COUNT"); do
+    id=$(printf "SIM%05d" "$i")
+    cat >> "$WORK/web/.env" <<CONF
+bambu.printers.$id.device-id=$id
+bambu.printers.$id.access-code=$id
+bambu.printers.$id.ip=localhost
+bambu.printers.$id.mqtt.url=$BROKER
+bambu.printers.$id.stream.enabled=false
+CONF
+done
+
+(cd "$WORK/server" && exec java -jar "$SERVER_JAR" > server.log 2>&1) &
+PIDS+=("$!")
+
+#prints the startup time reported by quarkus and the first report time, in ms
+measure() {
+    local log="$WORK/web/web.log" pid
+    rm -f "$log"
+    (cd "$WORK/web" && exec "$@" > web.log 2>&1) &
+    pid=$!
+    local first=""
+    for _ in $(seq 1 "$TIMEOUT"); do
+        first=$(grep -o 'First printer report received [0-9]* ms' "$log" 2>/dev/null | grep -o '[0-9]*' || true)
+        [ -n "$first" ] && break
+        sleep 1
+    done
+    local started
+    started=$(grep -o 'started in [0-9.]*s' "$log" | grep -o '[0-9.]*' || echo 0)
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    awk -v started="$started" -v first="${first:-0}" 'BEGIN {printf "%.0f,%d\n", started * 1000, first}'
+}
+
+echo "Results in $WORK" >&2
+echo "mode,run,started_ms,first_report_ms"
+for run in $(seq 1 "$RUNS"); do
+    if [ -n "$WEB_JAR" ]; then
+        echo "jvm,$run,$(measure java $JAVA_OPTS -jar "$WEB_JAR")"
+    fi
+    if [ -n "$WEB_NATIVE" ]; then
+        echo "native,$run,$(measure "$WEB_NATIVE")"
+    fi
+done
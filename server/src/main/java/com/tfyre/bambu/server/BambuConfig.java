@@ -2,6 +2,7 @@ package com.tfyre.bambu.server;
 
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 
@@ -14,6 +15,8 @@ public interface BambuConfig {
 
     Map<String, Printer> printers();
 
+    Simulator simulator();
+
     public interface Printer {
 
         @WithDefault("true")
@@ -33,4 +36,55 @@ public interface BambuConfig {
         Optional<String> requestTopic();
 
     }
+
+    public interface Simulator {
+
+        @WithDefault("false")
+        boolean enabled();
+
+        @WithDefault("200")
+        int count();
+
+        @WithDefault("SIM")
+        String deviceIdPrefix();
+
+        @WithDefault("tcp://localhost:1883")
+        String url();
+
+        @WithDefault("bblp")
+        String username();
+
+        @WithDefault("simulator")
+        String password();
+
+        @WithDefault("1s")
+        Duration interval();
+
+        @WithDefault("100ms")
+        Duration tick();
+
+        @WithDefault("30m")
+        Duration printTime();
+
+        @WithDefault("1")
+        long seed();
+
+        Optional<String> keyStore();
+
+        @WithDefault("changeit")
+        String keyStorePassword();
+
+        @WithDefault("0.0.0.0")
+        String bind();
+
+        @WithDefault("6000")
+        int cameraPort();
+
+        @WithDefault("1s")
+        Duration cameraInterval();
+
+        @WithDefault("9990")
+        int ftpPort();
+
+    }
 }
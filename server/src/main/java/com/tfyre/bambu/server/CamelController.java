@@ -2,6 +2,7 @@ package com.tfyre.bambu.server;
 
 import com.tfyre.bambu.mqtt.AbstractMqttController;
 import com.tfyre.bambu.server.BambuConfig.Printer;
+import com.tfyre.bambu.server.simulator.Simulator;
 import io.quarkus.logging.Log;
 import io.quarkus.runtime.Startup;
 import io.quarkus.scheduler.Scheduler;
@@ -9,6 +10,7 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.StartupListener;
@@ -25,6 +27,8 @@ public class CamelController extends AbstractMqttController implements StartupLi
     BambuConfig config;
     @Inject
     Scheduler scheduler;
+    @Inject
+    Simulator simulator;
 
     private final List<BambuPrinterProcessor> list = new ArrayList<>();
 
@@ -37,12 +41,18 @@ public class CamelController extends AbstractMqttController implements StartupLi
     public void onCamelContextFullyStarted(final CamelContext context, final boolean alreadyStarted) throws Exception {
         Log.info("Starting all printers");
         list.forEach(p -> p.start(context, scheduler));
+        if (config.simulator().enabled()) {
+            simulator.start(context);
+        }
     }
 
     @Override
     public void configure() throws Exception {
         getCamelContext().addStartupListener(this);
         config.printers().forEach(this::configurePrinter);
+        if (config.simulator().enabled()) {
+            configureSimulator(config.simulator());
+        }
         Log.info("configured");
     }
 
@@ -73,4 +83,21 @@ public class CamelController extends AbstractMqttController implements StartupLi
                 .group(name)
                 .process(printer);
     }
+
+    private void configureSimulator(final BambuConfig.Simulator config) {
+        Log.infof("Configuring simulator: %d printers", config.count());
+        final Endpoint ep = getPrinterEndpoint("simulator");
+        simulator.setup(ep);
+
+        //producer, the report topic is set per message
+        from(ep)
+                .id("producer-simulator")
+                .group("simulator")
+                .to(getMqttEndpoint(getTopic(Optional.empty(), "simulator", "report"), config.url(), config.username(), config.password()));
+        //consumer
+        from(getMqttEndpoint(simulator.getRequestTopic(), config.url(), config.username(), config.password()))
+                .id("consumer-simulator")
+                .group("simulator")
+                .process(simulator);
+    }
 }
@@ -0,0 +1,139 @@
+package com.tfyre.bambu.server.simulator;
+
+import io.quarkus.logging.Log;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+
+/**
+ * Camera port of the simulated printers, speaking the 80 byte auth handshake and 16 byte framed JPEG protocol.
+ *
+ * All printers share one port, the access code in the handshake selects the printer. Frames are rendered once at startup
+ * and only the header is written per frame.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class CameraStub {
+
+    private static final int AUTH_SIZE = 80;
+    private static final int FRAMES = 10;
+
+    private final ServerSocket serverSocket;
+    private final Function<String, Optional<VirtualPrinter>> lookup;
+    private final Duration interval;
+    private final List<byte[]> frames;
+
+    /**
+     * @param serverSocket bound TLS server socket
+     * @param lookup finds a printer by access code
+     * @param interval time between frames
+     */
+    public CameraStub(final ServerSocket serverSocket, final Function<String, Optional<VirtualPrinter>> lookup, final Duration interval) {
+        this.serverSocket = serverSocket;
+        this.lookup = lookup;
+        this.interval = interval;
+        this.frames = IntStream.range(0, FRAMES).mapToObj(this::renderFrame).toList();
+    }
+
+    private byte[] renderFrame(final int index) {
+        final BufferedImage image = new BufferedImage(640, 360, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.DARK_GRAY);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setColor(Color.ORANGE);
+            g.fillRect(40 + index * 50, 250, 60, 40);
+            g.setColor(Color.WHITE);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 32));
+            g.drawString("Simulator %d".formatted(index), 40, 80);
+        } finally {
+            g.dispose();
+        }
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpg", result);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot render frame: %s".formatted(ex.getMessage()), ex);
+        }
+        return result.toByteArray();
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("camera-accept").start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    Thread.ofVirtual().name("camera-%s".formatted(socket.getRemoteSocketAddress())).start(() -> serve(socket));
+                } catch (IOException ex) {
+                    if (!serverSocket.isClosed()) {
+                        Log.errorf("camera accept failed: %s", ex.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException ex) {
+            Log.debugf("camera close failed: %s", ex.getMessage());
+        }
+    }
+
+    private static String readString(final byte[] auth, final int offset) {
+        int end = offset;
+        while (end < offset + 32 && auth[end] != 0) {
+            end++;
+        }
+        return new String(auth, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private void serve(final Socket socket) {
+        try (socket) {
+            final byte[] auth = new byte[AUTH_SIZE];
+            new DataInputStream(socket.getInputStream()).readFully(auth);
+            final Optional<VirtualPrinter> printer = lookup.apply(readString(auth, 48));
+            if (printer.isEmpty()) {
+                Log.infof("camera: unknown access code from %s", socket.getRemoteSocketAddress());
+                return;
+            }
+            Log.debugf("%s: camera connected", printer.get().getName());
+            final OutputStream out = socket.getOutputStream();
+            final ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; !socket.isClosed(); i = (i + 1) % frames.size()) {
+                final byte[] frame = frames.get(i);
+                header.clear();
+                header.putInt(frame.length).putInt(0).putLong(0);
+                out.write(header.array());
+                out.write(frame);
+                out.flush();
+                Thread.sleep(interval.toMillis());
+            }
+        } catch (SocketException ex) {
+            Log.debugf("camera: disconnected: %s", ex.getMessage());
+        } catch (IOException ex) {
+            Log.errorf("camera: %s", ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.tfyre.bambu.server.simulator;
+
+import io.quarkus.logging.Log;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.net.ssl.SSLServerSocketFactory;
+
+/**
+ * Implicit FTPS stub of the simulated printers with the commands used by the web app.
+ *
+ * All printers share one port, the password selects the printer. Uploaded data is counted and discarded, only the size
+ * and modification time of each file is kept.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class FtpStub {
+
+    private static final DateTimeFormatter MDTM = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter LIST = DateTimeFormatter.ofPattern("MMM dd HH:mm", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    private final ServerSocket serverSocket;
+    private final SSLServerSocketFactory dataFactory;
+    private final Function<String, Optional<VirtualPrinter>> lookup;
+    private final Map<String, Map<String, RemoteFile>> files = new ConcurrentHashMap<>();
+
+    /**
+     * @param serverSocket bound TLS server socket for the control connection
+     * @param dataFactory creates the TLS passive data sockets
+     * @param lookup finds a printer by access code
+     */
+    public FtpStub(final ServerSocket serverSocket, final SSLServerSocketFactory dataFactory, final Function<String, Optional<VirtualPrinter>> lookup) {
+        this.serverSocket = serverSocket;
+        this.dataFactory = dataFactory;
+        this.lookup = lookup;
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("ftp-accept").start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket socket = serverSocket.accept();
+                    Thread.ofVirtual().name("ftp-%s".formatted(socket.getRemoteSocketAddress())).start(() -> new Session(socket).run());
+                } catch (IOException ex) {
+                    if (!serverSocket.isClosed()) {
+                        Log.errorf("ftp accept failed: %s", ex.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException ex) {
+            Log.debugf("ftp close failed: %s", ex.getMessage());
+        }
+    }
+
+    private static String normalize(final String path) {
+        final String result = path.strip();
+        return result.startsWith("/") ? result.substring(1) : result;
+    }
+
+    private record RemoteFile(long size, Instant modified) {
+
+    }
+
+    private final class Session {
+
+        private final Socket socket;
+        private PrintWriter out;
+        private Optional<VirtualPrinter> printer = Optional.empty();
+        private Optional<ServerSocket> passive = Optional.empty();
+        private Optional<String> renameFrom = Optional.empty();
+
+        private Session(final Socket socket) {
+            this.socket = socket;
+        }
+
+        private void reply(final String reply) {
+            out.print(reply);
+            out.print("\r\n");
+            out.flush();
+        }
+
+        private Map<String, RemoteFile> getFiles() {
+            return files.computeIfAbsent(printer.map(VirtualPrinter::getDeviceId).orElse(""), k -> new ConcurrentHashMap<>());
+        }
+
+        private void run() {
+            try (socket) {
+                out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+                final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                reply("220 Simulator FTP ready");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    final int pos = line.indexOf(' ');
+                    final String command = (pos == -1 ? line : line.substring(0, pos)).toUpperCase();
+                    final String argument = pos == -1 ? "" : line.substring(pos + 1);
+                    if (!handle(command, argument)) {
+                        return;
+                    }
+                }
+            } catch (IOException ex) {
+                Log.debugf("ftp: session ended: %s", ex.getMessage());
+            } finally {
+                closePassive();
+            }
+        }
+
+        private boolean handle(final String command, final String argument) throws IOException {
+            if (printer.isEmpty() && !Set.of("USER", "PASS", "QUIT", "FEAT", "SYST").contains(command)) {
+                reply("530 Not logged in");
+                return true;
+            }
+            switch (command) {
+                case "USER" ->
+                    reply("331 Password required");
+                case "PASS" -> {
+                    printer = lookup.apply(argument);
+                    reply(printer.isPresent() ? "230 Logged in" : "530 Login incorrect");
+                }
+                case "PBSZ", "PROT", "TYPE", "NOOP", "MODE", "STRU" ->
+                    reply("200 OK");
+                case "SYST" ->
+                    reply("215 UNIX Type: L8");
+                case "FEAT" ->
+                    reply("211 No features");
+                case "PWD" ->
+                    reply("257 \"/\"");
+                case "CWD" ->
+                    reply("250 OK");
+                case "PASV" -> {
+                    final ServerSocket server = openPassive();
+                    final byte[] address = socket.getLocalAddress().getAddress();
+                    final int port = server.getLocalPort();
+                    reply("227 Entering Passive Mode (%d,%d,%d,%d,%d,%d)".formatted(
+                            address[0] & 0xff, address[1] & 0xff, address[2] & 0xff, address[3] & 0xff, port >> 8, port & 0xff));
+                }
+                case "EPSV" ->
+                    reply("229 Entering Extended Passive Mode (|||%d|)".formatted(openPassive().getLocalPort()));
+                case "SIZE" -> {
+                    final RemoteFile file = getFiles().get(normalize(argument));
+                    reply(file == null ? "550 Not found" : "213 %d".formatted(file.size()));
+                }
+                case "MDTM" -> {
+                    final RemoteFile file = getFiles().get(normalize(argument));
+                    reply(file == null ? "550 Not found" : "213 %s".formatted(MDTM.format(file.modified())));
+                }
+                case "DELE" ->
+                    reply(getFiles().remove(normalize(argument)) == null ? "550 Not found" : "250 Deleted");
+                case "RNFR" -> {
+                    renameFrom = Optional.of(normalize(argument)).filter(getFiles()::containsKey);
+                    reply(renameFrom.isPresent() ? "350 Ready for RNTO" : "550 Not found");
+                }
+                case "RNTO" -> {
+                    final Optional<RemoteFile> file = renameFrom.map(getFiles()::remove);
+                    renameFrom = Optional.empty();
+                    file.ifPresent(f -> getFiles().put(normalize(argument), f));
+                    reply(file.isPresent() ? "250 Renamed" : "503 RNFR required");
+                }
+                case "STOR", "APPE" ->
+                    store(normalize(argument), "APPE".equals(command));
+                case "LIST", "NLST" ->
+                    list("NLST".equals(command));
+                case "QUIT" -> {
+                    reply("221 Bye");
+                    return false;
+                }
+                default ->
+                    reply("502 Not implemented");
+            }
+            return true;
+        }
+
+        private ServerSocket openPassive() throws IOException {
+            closePassive();
+            passive = Optional.of(dataFactory.createServerSocket(0, 1, socket.getLocalAddress()));
+            return passive.get();
+        }
+
+        private void closePassive() {
+            passive.ifPresent(s -> {
+                try {
+                    s.close();
+                } catch (IOException ex) {
+                    Log.debugf("ftp: passive close failed: %s", ex.getMessage());
+                }
+            });
+            passive = Optional.empty();
+        }
+
+        private Optional<Socket> acceptData() throws IOException {
+            if (passive.isEmpty()) {
+                reply("425 Use PASV first");
+                return Optional.empty();
+            }
+            reply("150 Opening data connection");
+            try {
+                return Optional.of(passive.get().accept());
+            } finally {
+                closePassive();
+            }
+        }
+
+        private void store(final String name, final boolean append) throws IOException {
+            final Optional<Socket> data = acceptData();
+            if (data.isEmpty()) {
+                return;
+            }
+            long size = append ? Optional.ofNullable(getFiles().get(name)).map(RemoteFile::size).orElse(0L) : 0;
+            try (Socket s = data.get(); InputStream is = s.getInputStream()) {
+                final byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    size += read;
+                }
+            } finally {
+                //keep what arrived so an interrupted upload can be resumed
+                getFiles().put(name, new RemoteFile(size, Instant.now()));
+            }
+            Log.debugf("%s: stored [%s] size[%d]", printer.map(VirtualPrinter::getName).orElse(""), name, size);
+            reply("226 Transfer complete");
+        }
+
+        private void list(final boolean namesOnly) throws IOException {
+            final Optional<Socket> data = acceptData();
+            if (data.isEmpty()) {
+                return;
+            }
+            try (Socket s = data.get(); OutputStream os = s.getOutputStream()) {
+                final StringBuilder sb = new StringBuilder();
+                getFiles().forEach((name, file) -> {
+                    if (namesOnly) {
+                        sb.append(name);
+                    } else {
+                        sb.append("-rw-r--r-- 1 user group %d %s %s".formatted(file.size(), LIST.format(file.modified()), name));
+                    }
+                    sb.append("\r\n");
+                });
+                os.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            reply("226 Transfer complete");
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.tfyre.bambu.server.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Json report rendered once with <code>${name}</code> placeholders, only the placeholder values are written per message.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class MessageTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([a-z0-9_]+)\\}");
+
+    private final byte[][] literals;
+    private final int[] slots;
+    private final List<String> names;
+    private final int literalSize;
+
+    private MessageTemplate(final byte[][] literals, final int[] slots, final List<String> names) {
+        this.literals = literals;
+        this.slots = slots;
+        this.names = names;
+        int size = 0;
+        for (final byte[] literal : literals) {
+            size += literal.length;
+        }
+        this.literalSize = size;
+    }
+
+    public static MessageTemplate compile(final String template) {
+        final String json = template.strip();
+        final Matcher matcher = PLACEHOLDER.matcher(json);
+        final List<byte[]> literals = new ArrayList<>();
+        final List<Integer> slots = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(json.substring(last, matcher.start()).getBytes(StandardCharsets.UTF_8));
+            final String name = matcher.group(1);
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+            slots.add(names.indexOf(name));
+            last = matcher.end();
+        }
+        literals.add(json.substring(last).getBytes(StandardCharsets.UTF_8));
+        return new MessageTemplate(literals.toArray(byte[][]::new), slots.stream().mapToInt(Integer::intValue).toArray(), List.copyOf(names));
+    }
+
+    public static MessageTemplate fromResource(final String name) {
+        final String fullName = "json/simulator/%s.json".formatted(name);
+        try (InputStream resource = Thread.currentThread().getContextClassLoader().getResourceAsStream(fullName)) {
+            if (resource == null) {
+                throw new IllegalStateException("Cannot find %s".formatted(fullName));
+            }
+            return compile(new String(resource.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read %s - %s".formatted(fullName, ex.getMessage()), ex);
+        }
+    }
+
+    /**
+     * @param name placeholder name
+     * @return the index to use in {@link #render}
+     */
+    public int indexOf(final String name) {
+        final int result = names.indexOf(name);
+        if (result == -1) {
+            throw new IllegalArgumentException("Unknown placeholder [%s]".formatted(name));
+        }
+        return result;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @param values one value per placeholder, ordered by {@link #indexOf}, values are written as is
+     * @return the rendered message
+     */
+    public byte[] render(final String... values) {
+        final byte[][] encoded = new byte[values.length][];
+        int size = literalSize;
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        for (final int slot : slots) {
+            size += encoded[slot].length;
+        }
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(size);
+        for (int i = 0; i < slots.length; i++) {
+            result.writeBytes(literals[i]);
+            result.writeBytes(encoded[slots[i]]);
+        }
+        result.writeBytes(literals[slots.length]);
+        return result.toByteArray();
+    }
+
+}
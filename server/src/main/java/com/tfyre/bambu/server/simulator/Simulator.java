@@ -0,0 +1,186 @@
+package com.tfyre.bambu.server.simulator;
+
+import com.tfyre.bambu.server.BambuConfig;
+import io.quarkus.logging.Log;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocketFactory;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.paho.PahoConstants;
+
+/**
+ * High scale simulator, all virtual printers are driven by one {@link TimerWheel} and publish through one MQTT connection,
+ * requests are received through one wildcard subscription.
+ *
+ * The device id doubles as access code for the camera and FTPS stubs, which share one port each.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class Simulator implements Processor {
+
+    private static final String REQUEST_TOPIC = "device/+/request";
+
+    @Inject
+    BambuConfig config;
+
+    private final Map<String, VirtualPrinter> printers = new LinkedHashMap<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private Endpoint endpoint;
+    private ProducerTemplate producerTemplate;
+    private TimerWheel wheel;
+    private byte[] fullStatus;
+    private Optional<CameraStub> camera = Optional.empty();
+    private Optional<FtpStub> ftp = Optional.empty();
+
+    public String getRequestTopic() {
+        return REQUEST_TOPIC;
+    }
+
+    private String getReportTopic(final String deviceId) {
+        return "device/%s/report".formatted(deviceId);
+    }
+
+    private Optional<VirtualPrinter> getPrinter(final String accessCode) {
+        return Optional.ofNullable(printers.get(accessCode));
+    }
+
+    /**
+     * @param endpoint producer endpoint, the topic is overridden per message
+     */
+    public void setup(final Endpoint endpoint) {
+        this.endpoint = endpoint;
+        final BambuConfig.Simulator simulator = config.simulator();
+        for (int i = 1; i <= simulator.count(); i++) {
+            final String deviceId = "%s%05d".formatted(simulator.deviceIdPrefix(), i);
+            final String topic = getReportTopic(deviceId);
+            printers.put(deviceId, new VirtualPrinter("sim-%05d".formatted(i), deviceId, simulator.interval(), simulator.printTime(),
+                    simulator.seed() * 31 + i, data -> send(topic, data)));
+        }
+    }
+
+    private void send(final String topic, final byte[] data) {
+        if (producerTemplate == null) {
+            return;
+        }
+        sent.incrementAndGet();
+        bytes.addAndGet(data.length);
+        producerTemplate.sendBodyAndHeader(endpoint, data, PahoConstants.CAMEL_PAHO_OVERRIDE_TOPIC, topic);
+    }
+
+    private byte[] readFullStatus() {
+        try (InputStream resource = Thread.currentThread().getContextClassLoader().getResourceAsStream("json/fullstatus.json")) {
+            if (resource == null) {
+                throw new IllegalStateException("Cannot find json/fullstatus.json");
+            }
+            return resource.readAllBytes();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read json/fullstatus.json - %s".formatted(ex.getMessage()), ex);
+        }
+    }
+
+    private Optional<SSLServerSocketFactory> getSocketFactory() {
+        final BambuConfig.Simulator simulator = config.simulator();
+        if (simulator.keyStore().isEmpty()) {
+            Log.info("Simulator camera and ftp disabled, configure [bambu.simulator.key-store]");
+            return Optional.empty();
+        }
+        final char[] password = simulator.keyStorePassword().toCharArray();
+        try (InputStream is = Files.newInputStream(Path.of(simulator.keyStore().get()))) {
+            final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(is, password);
+            final KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            kmf.init(keyStore, password);
+            final SSLContext context = SSLContext.getInstance("TLS");
+            context.init(kmf.getKeyManagers(), null, null);
+            return Optional.of(context.getServerSocketFactory());
+        } catch (IOException | GeneralSecurityException ex) {
+            Log.errorf(ex, "Simulator camera and ftp disabled, cannot load key store: %s", ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void startStubs() {
+        final BambuConfig.Simulator simulator = config.simulator();
+        getSocketFactory().ifPresent(factory -> {
+            try {
+                final InetAddress bind = InetAddress.getByName(simulator.bind());
+                camera = Optional.of(new CameraStub(factory.createServerSocket(simulator.cameraPort(), 100, bind), this::getPrinter, simulator.cameraInterval()));
+                ftp = Optional.of(new FtpStub(factory.createServerSocket(simulator.ftpPort(), 100, bind), factory, this::getPrinter));
+                camera.get().start();
+                ftp.get().start();
+                Log.infof("Simulator camera on %d and ftp on %d", simulator.cameraPort(), simulator.ftpPort());
+            } catch (IOException ex) {
+                Log.errorf(ex, "Cannot start simulator camera and ftp: %s", ex.getMessage());
+            }
+        });
+    }
+
+    public void start(final CamelContext context) {
+        final BambuConfig.Simulator simulator = config.simulator();
+        Log.infof("Starting simulator with %d printers", printers.size());
+        fullStatus = readFullStatus();
+        producerTemplate = context.createProducerTemplate();
+        final Duration interval = simulator.interval();
+        final int slots = (int) Math.max(1, interval.toNanos() / Math.max(1, simulator.tick().toNanos()));
+        wheel = new TimerWheel(simulator.tick(), slots);
+        int i = 0;
+        for (final VirtualPrinter printer : printers.values()) {
+            //spread the printers over the interval instead of reporting in bursts
+            wheel.schedule(printer::tick, interval.multipliedBy(i++).dividedBy(printers.size()), interval);
+        }
+        wheel.schedule(this::logStats, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        wheel.start();
+        startStubs();
+    }
+
+    private void logStats() {
+        Log.infof("Simulator sent %d messages, %d bytes in the last minute", sent.getAndSet(0), bytes.getAndSet(0));
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        Optional.ofNullable(wheel).ifPresent(TimerWheel::stop);
+        camera.ifPresent(CameraStub::stop);
+        ftp.ifPresent(FtpStub::stop);
+    }
+
+    @Override
+    public void process(final Exchange exchange) throws Exception {
+        final String topic = exchange.getMessage().getHeader(PahoConstants.MQTT_TOPIC, String.class);
+        final String body = exchange.getMessage().getBody(String.class);
+        final String[] parts = topic == null ? new String[0] : topic.split("/");
+        final Optional<VirtualPrinter> printer = parts.length == 3 ? getPrinter(parts[1]) : Optional.empty();
+        if (printer.isEmpty()) {
+            Log.debugf("Simulator: unknown topic [%s]", topic);
+            return;
+        }
+        Log.debugf("%s: Received - [%d]", printer.get().getName(), body.length());
+        if (body.contains("pushall")) {
+            final String reportTopic = getReportTopic(printer.get().getDeviceId());
+            send(reportTopic, fullStatus);
+            send(reportTopic, printer.get().getFullStatus());
+        }
+    }
+
+}
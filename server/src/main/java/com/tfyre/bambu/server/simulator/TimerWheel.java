@@ -0,0 +1,116 @@
+package com.tfyre.bambu.server.simulator;
+
+import io.quarkus.logging.Log;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel driving periodic tasks from a single thread.
+ *
+ * Every tick only the tasks in the current slot are visited, so hundreds of virtual printers cost one timer thread and no
+ * per printer scheduler jobs. Tasks must be short, they run on the wheel thread.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class TimerWheel {
+
+    private final long tickNanos;
+    private final List<Queue<Entry>> slots;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService executor;
+    private int current;
+
+    /**
+     * @param tick time between ticks
+     * @param size slots in the wheel, tasks further away than a revolution wait for more rounds
+     */
+    public TimerWheel(final Duration tick, final int size) {
+        this.tickNanos = Math.max(1, tick.toNanos());
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread result = new Thread(r, "timer-wheel");
+            result.setDaemon(true);
+            return result;
+        });
+    }
+
+    public void start() {
+        executor.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private long toTicks(final Duration duration) {
+        return Math.max(1, duration.toNanos() / tickNanos);
+    }
+
+    /**
+     * @param task the task to run
+     * @param initialDelay time before the first run, used to spread tasks over the slots
+     * @param period time between runs
+     */
+    public void schedule(final Runnable task, final Duration initialDelay, final Duration period) {
+        pending.add(new Entry(task, toTicks(initialDelay), toTicks(period)));
+    }
+
+    private void add(final Entry entry, final long delay) {
+        entry.rounds = (delay - 1) / slots.size();
+        slots.get((int) ((current + delay) % slots.size())).add(entry);
+    }
+
+    private void advance() {
+        Entry entry;
+        while ((entry = pending.poll()) != null) {
+            add(entry, entry.initialDelay);
+        }
+        current = (current + 1) % slots.size();
+        final List<Entry> due = new ArrayList<>();
+        final Iterator<Entry> iterator = slots.get(current).iterator();
+        while (iterator.hasNext()) {
+            final Entry e = iterator.next();
+            if (e.rounds > 0) {
+                e.rounds--;
+                continue;
+            }
+            iterator.remove();
+            due.add(e);
+        }
+        due.forEach(e -> {
+            try {
+                e.task.run();
+            } catch (RuntimeException ex) {
+                Log.errorf(ex, "Timer task failed: %s", ex.getMessage());
+            }
+            add(e, e.period);
+        });
+    }
+
+    private static final class Entry {
+
+        private final Runnable task;
+        private final long initialDelay;
+        private final long period;
+        private long rounds;
+
+        private Entry(final Runnable task, final long initialDelay, final long period) {
+            this.task = task;
+            this.initialDelay = initialDelay;
+            this.period = period;
+        }
+
+    }
+
+}
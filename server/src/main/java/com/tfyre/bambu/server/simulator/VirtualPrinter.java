@@ -0,0 +1,301 @@
+package com.tfyre.bambu.server.simulator;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Simulated printer going through idle, prepare, running, pause, finish and failed, sending delta reports like a real
+ * printer: temperatures every tick, progress while printing, the state when it changes and AMS changes now and then.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class VirtualPrinter {
+
+    private static final MessageTemplate TEMPERATURE = MessageTemplate.fromResource("temperature");
+    private static final MessageTemplate PROGRESS = MessageTemplate.fromResource("progress");
+    private static final MessageTemplate STATE = MessageTemplate.fromResource("state");
+    private static final MessageTemplate AMS = MessageTemplate.fromResource("ams");
+
+    private static final int T_NOZZLE = TEMPERATURE.indexOf("nozzle");
+    private static final int T_NOZZLE_TARGET = TEMPERATURE.indexOf("nozzle_target");
+    private static final int T_BED = TEMPERATURE.indexOf("bed");
+    private static final int T_BED_TARGET = TEMPERATURE.indexOf("bed_target");
+    private static final int T_CHAMBER = TEMPERATURE.indexOf("chamber");
+    private static final int T_FAN = TEMPERATURE.indexOf("fan");
+    private static final int T_WIFI = TEMPERATURE.indexOf("wifi");
+    private static final int T_SEQUENCE = TEMPERATURE.indexOf("sequence");
+
+    private static final int P_PERCENT = PROGRESS.indexOf("percent");
+    private static final int P_REMAINING = PROGRESS.indexOf("remaining");
+    private static final int P_LAYER = PROGRESS.indexOf("layer");
+    private static final int P_TOTAL_LAYER = PROGRESS.indexOf("total_layer");
+    private static final int P_SEQUENCE = PROGRESS.indexOf("sequence");
+
+    private static final int S_STATE = STATE.indexOf("state");
+    private static final int S_STAGE = STATE.indexOf("stage");
+    private static final int S_ERROR = STATE.indexOf("error");
+    private static final int S_SUBTASK = STATE.indexOf("subtask");
+    private static final int S_FILE = STATE.indexOf("file");
+    private static final int S_PERCENT = STATE.indexOf("percent");
+    private static final int S_REMAINING = STATE.indexOf("remaining");
+    private static final int S_LAYER = STATE.indexOf("layer");
+    private static final int S_TOTAL_LAYER = STATE.indexOf("total_layer");
+    private static final int S_SEQUENCE = STATE.indexOf("sequence");
+
+    private static final int A_HUMIDITY = AMS.indexOf("humidity");
+    private static final int A_TRAY_NOW = AMS.indexOf("tray_now");
+    private static final int A_VERSION = AMS.indexOf("ams_version");
+    private static final int A_SEQUENCE = AMS.indexOf("sequence");
+    private static final int[] A_REMAIN = {AMS.indexOf("remain0"), AMS.indexOf("remain1"), AMS.indexOf("remain2"), AMS.indexOf("remain3")};
+
+    private static final double AMBIENT = 25;
+
+    private final String name;
+    private final String deviceId;
+    private final long ticksPerPrint;
+    private final Consumer<byte[]> sender;
+    private final SplittableRandom rnd;
+    private final AtomicLong sequence;
+
+    private State state = State.IDLE;
+    private long stateTicks;
+    private double nozzle = AMBIENT;
+    private double nozzleTarget;
+    private double bed = AMBIENT;
+    private double bedTarget;
+    private double chamber = AMBIENT;
+    private int percent;
+    private int layer;
+    private int totalLayer;
+    private long printTicks;
+    private long printedTicks;
+    private int printCount;
+    private int trayNow;
+    private final int[] remain = {100, 100, 100, 100};
+    private int amsVersion;
+    private int humidity = 4;
+    private int error;
+
+    /**
+     * @param name printer name
+     * @param deviceId used in topics and as access code
+     * @param interval time between ticks
+     * @param printTime average print duration
+     * @param seed random seed, so a run can be repeated
+     * @param sender publishes a report
+     */
+    public VirtualPrinter(final String name, final String deviceId, final Duration interval, final Duration printTime, final long seed, final Consumer<byte[]> sender) {
+        this.name = name;
+        this.deviceId = deviceId;
+        this.ticksPerPrint = Math.max(10, printTime.toMillis() / Math.max(1, interval.toMillis()));
+        this.sender = sender;
+        this.rnd = new SplittableRandom(seed);
+        this.sequence = new AtomicLong(rnd.nextInt(1_000_000));
+        //start in a random part of the lifecycle so the farm is not in lockstep
+        this.stateTicks = -rnd.nextInt(60);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    private static String format(final double value) {
+        return Double.toString(Math.round(value * 16) / 16.0);
+    }
+
+    private String nextSequence() {
+        return Long.toString(sequence.incrementAndGet());
+    }
+
+    private double approach(final double value, final double target, final double rate) {
+        final double next = value + (target - value) * rate + (rnd.nextDouble() - 0.5) * 0.2;
+        return Math.abs(next - target) < 0.1 ? target : next;
+    }
+
+    private int getRemainingMinutes() {
+        return (int) Math.max(0, (printTicks - printedTicks) / 60);
+    }
+
+    private void setState(final State newState) {
+        state = newState;
+        stateTicks = 0;
+        switch (newState) {
+            case PREPARE -> {
+                printCount++;
+                nozzleTarget = 200 + rnd.nextInt(6) * 10;
+                bedTarget = 55 + rnd.nextInt(3) * 5;
+                printTicks = ticksPerPrint / 2 + rnd.nextLong(ticksPerPrint);
+                printedTicks = 0;
+                totalLayer = 50 + rnd.nextInt(400);
+                layer = 0;
+                percent = 0;
+                error = 0;
+            }
+            case FINISH, IDLE -> {
+                nozzleTarget = 0;
+                bedTarget = 0;
+            }
+            case FAILED -> {
+                nozzleTarget = 0;
+                bedTarget = 0;
+                error = 0x0300_8001 + rnd.nextInt(8);
+            }
+            default -> {
+            }
+        }
+        sendState();
+    }
+
+    private byte[] renderState() {
+        final String[] values = new String[STATE.size()];
+        values[S_STATE] = state.name();
+        values[S_STAGE] = Integer.toString(state.stage);
+        values[S_ERROR] = Integer.toString(error);
+        values[S_SUBTASK] = "%s-print-%d".formatted(name, printCount);
+        values[S_FILE] = "/data/Metadata/plate_1.gcode";
+        values[S_PERCENT] = Integer.toString(percent);
+        values[S_REMAINING] = Integer.toString(getRemainingMinutes());
+        values[S_LAYER] = Integer.toString(layer);
+        values[S_TOTAL_LAYER] = Integer.toString(totalLayer);
+        values[S_SEQUENCE] = nextSequence();
+        return STATE.render(values);
+    }
+
+    private void sendState() {
+        sender.accept(renderState());
+    }
+
+    private void sendTemperature() {
+        final String[] values = new String[TEMPERATURE.size()];
+        values[T_NOZZLE] = format(nozzle);
+        values[T_NOZZLE_TARGET] = format(nozzleTarget);
+        values[T_BED] = format(bed);
+        values[T_BED_TARGET] = format(bedTarget);
+        values[T_CHAMBER] = format(chamber);
+        values[T_FAN] = Integer.toString(state == State.RUNNING ? 15 : 0);
+        values[T_WIFI] = Integer.toString(-40 - rnd.nextInt(30));
+        values[T_SEQUENCE] = nextSequence();
+        sender.accept(TEMPERATURE.render(values));
+    }
+
+    private void sendProgress() {
+        final String[] values = new String[PROGRESS.size()];
+        values[P_PERCENT] = Integer.toString(percent);
+        values[P_REMAINING] = Integer.toString(getRemainingMinutes());
+        values[P_LAYER] = Integer.toString(layer);
+        values[P_TOTAL_LAYER] = Integer.toString(totalLayer);
+        values[P_SEQUENCE] = nextSequence();
+        sender.accept(PROGRESS.render(values));
+    }
+
+    private void sendAms() {
+        final String[] values = new String[AMS.size()];
+        values[A_HUMIDITY] = Integer.toString(humidity);
+        values[A_TRAY_NOW] = Integer.toString(trayNow);
+        values[A_VERSION] = Integer.toString(amsVersion);
+        for (int i = 0; i < A_REMAIN.length; i++) {
+            values[A_REMAIN[i]] = Integer.toString(remain[i]);
+        }
+        values[A_SEQUENCE] = nextSequence();
+        sender.accept(AMS.render(values));
+    }
+
+    private void print() {
+        printedTicks++;
+        final int newPercent = (int) Math.min(100, printedTicks * 100 / printTicks);
+        final int newLayer = (int) Math.min(totalLayer, printedTicks * totalLayer / printTicks);
+        if (newPercent != percent || newLayer != layer) {
+            percent = newPercent;
+            layer = newLayer;
+            sendProgress();
+        }
+        if (rnd.nextInt(2_000) == 0) {
+            //filament runout, swap to the next tray
+            remain[trayNow] = 0;
+            trayNow = (trayNow + 1) % remain.length;
+            remain[trayNow] = 100;
+            amsVersion++;
+            sendAms();
+        } else if (printedTicks % 300 == 0 && remain[trayNow] > 0) {
+            remain[trayNow]--;
+            sendAms();
+        }
+    }
+
+    /**
+     * Advances the simulation by one interval.
+     */
+    public synchronized void tick() {
+        stateTicks++;
+        nozzle = approach(nozzle, Math.max(AMBIENT, nozzleTarget), 0.15);
+        bed = approach(bed, Math.max(AMBIENT, bedTarget), 0.05);
+        chamber = approach(chamber, bedTarget > 0 ? 40 : AMBIENT, 0.01);
+        switch (state) {
+            case IDLE -> {
+                if (stateTicks > 30 + rnd.nextInt(300)) {
+                    setState(State.PREPARE);
+                }
+            }
+            case PREPARE -> {
+                if (Math.abs(nozzle - nozzleTarget) < 2 && Math.abs(bed - bedTarget) < 2) {
+                    setState(State.RUNNING);
+                }
+            }
+            case RUNNING -> {
+                print();
+                if (percent >= 100) {
+                    setState(State.FINISH);
+                } else if (rnd.nextInt(20_000) == 0) {
+                    setState(State.FAILED);
+                } else if (rnd.nextInt(10_000) == 0) {
+                    setState(State.PAUSE);
+                }
+            }
+            case PAUSE -> {
+                if (stateTicks > 10 + rnd.nextInt(60)) {
+                    setState(State.RUNNING);
+                }
+            }
+            case FINISH, FAILED -> {
+                if (stateTicks > 60 + rnd.nextInt(300)) {
+                    setState(State.IDLE);
+                }
+            }
+        }
+        sendTemperature();
+        if (rnd.nextInt(600) == 0) {
+            humidity = 1 + rnd.nextInt(5);
+            sendAms();
+        }
+    }
+
+    /**
+     * @return current state as a delta, sent after the full status template when a client asks for pushall
+     */
+    public synchronized byte[] getFullStatus() {
+        return renderState();
+    }
+
+    private enum State {
+        IDLE(1),
+        PREPARE(2),
+        RUNNING(2),
+        PAUSE(3),
+        FINISH(1),
+        FAILED(1);
+
+        private final int stage;
+
+        private State(final int stage) {
+            this.stage = stage;
+        }
+
+    }
+
+}